@@ -0,0 +1,56 @@
+package org.spring.liquibase.benchmark;
+
+import org.spring.liquibase.LiquiBaseApplication;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without a web server against a private in-memory H2 database
+ * and seeds it with the requested number of books.
+ */
+public final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String database, String... properties) {
+        return startWithUrl("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", properties);
+    }
+
+    public static ConfigurableApplicationContext startWithUrl(String url, String... properties) {
+        // passed as command-line arguments so they take precedence over application.yaml
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"
+        ));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        return new SpringApplicationBuilder(LiquiBaseApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    public static List<Book> seed(BookServiceImpl bookService, int count) {
+        return bookService.saveBooks(books(count));
+    }
+
+    public static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Book book = new Book();
+            book.setId(i + 1);
+            book.setTitle("Book " + i);
+            book.setPrice(100 + (i * 7919) % 10_000);
+            books.add(book);
+        }
+        return books;
+    }
+}
@@ -0,0 +1,34 @@
+package org.spring.liquibase.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.spring.liquibase.entity.Book;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the Jackson step behind /books/getAll and the listing endpoints, isolated from the database.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSerializationBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int listSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Book> books;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        books = BenchmarkContext.books(listSize);
+    }
+
+    @Benchmark
+    public byte[] serializeBookList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+}
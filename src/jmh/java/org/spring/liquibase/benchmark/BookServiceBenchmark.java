@@ -0,0 +1,84 @@
+package org.spring.liquibase.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.spring.liquibase.dto.BookPage;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline of the service over the repository and H2. The books cache and Hibernate's second-level cache are
+ * switched off, otherwise getBookById would measure cache hits, and the books saveBook inserts are deleted after
+ * every iteration so the table keeps its size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    private static final String SAVED_TITLE = "Benchmark Book";
+
+    private ConfigurableApplicationContext context;
+    private BookServiceImpl bookService;
+    private JdbcTemplate jdbcTemplate;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("book_service_" + tableSize,
+                "app.cache.specs.books=maximumSize=0",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        bookService = context.getBean(BookServiceImpl.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ids = BenchmarkContext.seed(bookService, tableSize).stream().mapToLong(Book::getId).toArray();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteSavedBooks() {
+        jdbcTemplate.update("delete from books where title = ?", SAVED_TITLE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book getBookById() {
+        return bookService.getBookById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<Book> getAllBooks() {
+        return bookService.getAllBooks();
+    }
+
+    @Benchmark
+    public BookPage getBooksSortByMinPrice() {
+        return bookService.getBooksSortByMinPrice(null, 20);
+    }
+
+    @Benchmark
+    public BookPage getBooksSortByMaxPrice() {
+        return bookService.getBooksSortByMaxPrice(null, 20);
+    }
+
+    @Benchmark
+    public Book saveBook() {
+        Book book = new Book();
+        book.setTitle(SAVED_TITLE);
+        book.setPrice(ThreadLocalRandom.current().nextInt(100, 10_000));
+        return bookService.saveBook(book);
+    }
+}
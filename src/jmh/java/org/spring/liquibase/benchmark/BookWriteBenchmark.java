@@ -0,0 +1,94 @@
+package org.spring.liquibase.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.repository.BookRepository;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former findById + save write path with the single UPDATE ... WHERE id = ? statements,
+ * both run directly against the repository so caching and events do not blur the difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookWriteBenchmark {
+    @Param({"10000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private TransactionTemplate transactionTemplate;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("book_write_" + tableSize);
+        bookRepository = context.getBean(BookRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        ids = BenchmarkContext.seed(context.getBean(BookServiceImpl.class), tableSize).stream()
+                .mapToLong(Book::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book updateReadThenWrite() {
+        long id = randomId();
+        int price = randomPrice();
+        return transactionTemplate.execute(status -> {
+            Book book = bookRepository.findById(id).orElseThrow();
+            book.setTitle("Updated Book");
+            book.setPrice(price);
+            return bookRepository.save(book);
+        });
+    }
+
+    @Benchmark
+    public Book updateSingleStatement() {
+        long id = randomId();
+        int price = randomPrice();
+        return transactionTemplate.execute(status ->
+                bookRepository.updateById(id, "Updated Book", price, null).orElseThrow());
+    }
+
+    @Benchmark
+    public Book patchReadThenWrite() {
+        long id = randomId();
+        int price = randomPrice();
+        return transactionTemplate.execute(status -> {
+            Book book = bookRepository.findById(id).orElseThrow();
+            book.setPrice(price);
+            return bookRepository.save(book);
+        });
+    }
+
+    @Benchmark
+    public Book patchSingleStatement() {
+        long id = randomId();
+        int price = randomPrice();
+        return transactionTemplate.execute(status ->
+                bookRepository.patchById(id, null, price, null).orElseThrow());
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static int randomPrice() {
+        return ThreadLocalRandom.current().nextInt(100, 10_000);
+    }
+}
@@ -0,0 +1,74 @@
+package org.spring.liquibase.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.spring.liquibase.entity.Role;
+import org.spring.liquibase.entity.User;
+import org.spring.liquibase.service.userService.UserServiceImpl;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a login and of hashing a new password per algorithm and cost, to pick app.password-hashing.
+ * authenticate goes through the application's DaoAuthenticationProvider with a warm principal cache,
+ * so it is the password check alone; encode is what UserServiceImpl pays on saveUser/updateUser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+    private static final String PASSWORD = "benchmark-password";
+
+    // <algorithm>-<bcrypt strength | pbkdf2 iterations>
+    @Param({"bcrypt-4", "bcrypt-8", "bcrypt-10", "bcrypt-12", "pbkdf2-310000"})
+    public String hashing;
+
+    private ConfigurableApplicationContext context;
+    private AuthenticationProvider authenticationProvider;
+    private PasswordEncoder passwordEncoder;
+    private Authentication login;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String algorithm = hashing.substring(0, hashing.indexOf('-'));
+        String cost = hashing.substring(hashing.indexOf('-') + 1);
+        context = BenchmarkContext.start("password_hashing_" + hashing.replace('-', '_'),
+                "app.password-hashing.algorithm=" + algorithm,
+                "bcrypt".equals(algorithm)
+                        ? "app.password-hashing.bcrypt-strength=" + cost
+                        : "app.password-hashing.pbkdf2-iterations=" + cost);
+        authenticationProvider = context.getBean("defaultAuthenticationProvider", AuthenticationProvider.class);
+        passwordEncoder = context.getBean(PasswordEncoder.class);
+
+        User user = new User();
+        user.setUsername("benchmark");
+        user.setPassword(PASSWORD);
+        user.setRoles(Set.of(Role.USER));
+        context.getBean(UserServiceImpl.class).saveUser(user);
+
+        login = UsernamePasswordAuthenticationToken.unauthenticated("benchmark", PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication authenticate() {
+        return authenticationProvider.authenticate(login);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+}
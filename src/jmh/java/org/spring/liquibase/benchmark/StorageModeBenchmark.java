@@ -0,0 +1,106 @@
+package org.spring.liquibase.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.spring.liquibase.dto.BookPage;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.repository.BookRepository;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The file-backed H2 database against the in-memory mode with its snapshots and journal. Writes go through the
+ * service, so the in-memory numbers include the journal append, fsynced per commit or on the interval.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageModeBenchmark {
+    private static final Path STATE = Path.of("target", "storage-mode-benchmark");
+
+    // in-memory-<journal-sync>
+    @Param({"file", "in-memory-commit", "in-memory-interval"})
+    public String mode;
+
+    @Param({"10000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private BookServiceImpl bookService;
+    private BookRepository bookRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        deleteRecursively(STATE);
+        Path state = STATE.toAbsolutePath();
+        context = "file".equals(mode)
+                ? BenchmarkContext.startWithUrl("jdbc:h2:file:" + state.resolve("lib_db"))
+                : BenchmarkContext.start(mode.replace('-', '_'),
+                        "app.in-memory.enabled=true",
+                        "app.in-memory.source-url=jdbc:h2:file:" + state.resolve("missing"),
+                        "app.in-memory.snapshot-file=" + state.resolve("snapshot.zip"),
+                        "app.in-memory.journal-directory=" + state.resolve("journal"),
+                        "app.in-memory.journal-sync=" + mode.substring("in-memory-".length()));
+        bookService = context.getBean(BookServiceImpl.class);
+        bookRepository = context.getBean(BookRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        ids = BenchmarkContext.seed(bookService, tableSize).stream()
+                .mapToLong(Book::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        deleteRecursively(STATE);
+    }
+
+    @Benchmark
+    public Book findById() {
+        long id = randomId();
+        return readOnlyTransaction.execute(status -> bookRepository.findById(id).orElseThrow());
+    }
+
+    @Benchmark
+    public BookPage sortByMinPrice() {
+        return bookService.getBooksSortByMinPrice(null, 20);
+    }
+
+    @Benchmark
+    public Book updateBook() {
+        Book book = new Book();
+        book.setTitle("Updated Book");
+        book.setPrice(ThreadLocalRandom.current().nextInt(100, 10_000));
+        return bookService.updateBook(randomId(), book, null);
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
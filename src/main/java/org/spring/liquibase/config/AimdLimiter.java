@@ -0,0 +1,72 @@
+package org.spring.liquibase.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted from measured latency, additive-increase/multiplicative-decrease: every request
+ * finishing within the threshold while the limit is at least half used raises it by one, a slower one
+ * multiplies it by the backoff ratio. An idle service therefore keeps its limit instead of inflating it.
+ * <p>
+ * The limit backs off at most once per congestion signal: a slow request that started before the last decrease
+ * was admitted under the old limit and says nothing about the new one, so it is ignored. A burst of slow
+ * requests therefore costs one step, not one step per request.
+ */
+public class AimdLimiter {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private volatile int limit;
+
+    // guarded by this
+    private boolean backedOff;
+    private long lastBackoffNanos;
+
+    public AimdLimiter(ConcurrencyLimitProperties.Route route) {
+        this.minLimit = route.getMinLimit();
+        this.maxLimit = route.getMaxLimit();
+        this.latencyThresholdNanos = route.getLatencyThreshold().toNanos();
+        this.backoffRatio = route.getBackoffRatio();
+        this.limit = Math.max(minLimit, Math.min(route.getInitialLimit(), maxLimit));
+    }
+
+    // Returns the number of requests in flight when the slot was taken, or -1 when the limit is reached.
+    public int tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return -1;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        return current + 1;
+    }
+
+    // startNanos and endNanos are System.nanoTime() readings taken when the slot was acquired and released.
+    public void release(int inFlightAtStart, long startNanos, long endNanos) {
+        inFlight.decrementAndGet();
+
+        synchronized (this) {
+            if (endNanos - startNanos > latencyThresholdNanos) {
+                if (!backedOff || startNanos - lastBackoffNanos > 0) {
+                    limit = Math.max(minLimit, (int) (limit * backoffRatio));
+                    backedOff = true;
+                    lastBackoffNanos = endNanos;
+                }
+            } else if (inFlightAtStart * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
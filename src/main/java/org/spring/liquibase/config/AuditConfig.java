@@ -0,0 +1,21 @@
+package org.spring.liquibase.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.spring.liquibase.service.auditService.AuditLog;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+
+    @Bean
+    AuditLog auditLog(AuditProperties properties, JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        return new AuditLog(properties, jdbcTemplate, new TransactionTemplate(transactionManager), meterRegistry);
+    }
+}
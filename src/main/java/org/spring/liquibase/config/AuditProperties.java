@@ -0,0 +1,28 @@
+package org.spring.liquibase.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.audit")
+public class AuditProperties {
+    private int queueCapacity = 10_000;
+    private int batchSize = 500;
+
+    // Upper bound on how long an entry waits in the queue while traffic is too low to fill a batch.
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    // BLOCK only: how long a request thread waits for room before the entry is dropped after all.
+    private Duration blockTimeout = Duration.ofMillis(50);
+
+    public enum OverflowPolicy {
+        // never slow down the request, count the lost entry
+        DROP,
+        // apply backpressure to the request thread, up to blockTimeout
+        BLOCK
+    }
+}
@@ -0,0 +1,35 @@
+package org.spring.liquibase.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheSpecProperties.class)
+public class CacheConfig {
+    public static final String USERS_CACHE = "users";
+    public static final String BOOKS_CACHE = "books";
+    public static final String BOOK_STATS_CACHE = "book-stats";
+    public static final String BOOK_RESPONSES_CACHE = "book-responses";
+
+    // Stats are recorded so the actuator exposes cache.gets{result=hit|miss} and cache.evictions per cache.
+    @Bean
+    CacheManager cacheManager(CacheSpecProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        properties.getSpecs().forEach((name, spec) ->
+                cacheManager.registerCustomCache(name, Caffeine.from(spec).recordStats().build()));
+        return cacheManager;
+    }
+
+    @Bean
+    UserCache userCache(CacheManager cacheManager) {
+        return new SpringCacheBasedUserCache(cacheManager.getCache(USERS_CACHE));
+    }
+}
@@ -0,0 +1,14 @@
+package org.spring.liquibase.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Caffeine spec per cache name, e.g. app.cache.specs.users=maximumSize=10000,expireAfterWrite=5m
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheSpecProperties {
+    private Map<String, String> specs = new HashMap<>();
+}
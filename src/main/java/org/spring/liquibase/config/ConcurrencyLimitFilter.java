@@ -0,0 +1,127 @@
+package org.spring.liquibase.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds load with an immediate 503 once the adaptive in-flight limit of the route is reached, before the request
+ * reaches authentication or the connection pool. Read and write routes are limited separately so a burst of
+ * BCrypt-heavy writes cannot starve the catalog reads. Anything outside /books and /users passes untouched.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final byte[] REJECTED_BODY =
+            "Сервер перегружен, повторите запрос позже.".getBytes(StandardCharsets.UTF_8);
+
+    private final AimdLimiter readLimiter;
+    private final AimdLimiter writeLimiter;
+    private final Counter readRejections;
+    private final Counter writeRejections;
+
+    public ConcurrencyLimitFilter(AimdLimiter readLimiter, AimdLimiter writeLimiter, MeterRegistry meterRegistry) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+
+        Gauge.builder("http.concurrency.limit", readLimiter, AimdLimiter::getLimit).tag("route", "read")
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.limit", writeLimiter, AimdLimiter::getLimit).tag("route", "write")
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.in.flight", readLimiter, AimdLimiter::getInFlight).tag("route", "read")
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.in.flight", writeLimiter, AimdLimiter::getInFlight).tag("route", "write")
+                .register(meterRegistry);
+        this.readRejections = Counter.builder("http.concurrency.rejected").tag("route", "read")
+                .register(meterRegistry);
+        this.writeRejections = Counter.builder("http.concurrency.rejected").tag("route", "write")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/books") && !path.startsWith("/users");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        AimdLimiter limiter = read ? readLimiter : writeLimiter;
+
+        int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            (read ? readRejections : writeRejections).increment();
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Runnable release = new Runnable() {
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            @Override
+            public void run() {
+                if (released.compareAndSet(false, true)) {
+                    limiter.release(inFlight, start, System.nanoTime());
+                }
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // An async response (the ?stream=true export) is still being written when the servlet thread returns;
+            // its slot is held and timed until the async request completes.
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private record ReleasingAsyncListener(Runnable release) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+}
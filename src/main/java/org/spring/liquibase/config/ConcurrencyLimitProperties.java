@@ -0,0 +1,41 @@
+package org.spring.liquibase.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+
+    // GET/HEAD on /books/** and /users/**
+    private Route read = new Route(50, 10, 200, Duration.ofMillis(250));
+
+    // every other method on those paths; each of these pays for a BCrypt check
+    private Route write = new Route(20, 5, 100, Duration.ofMillis(500));
+
+    @Data
+    public static class Route {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+
+        // a slower request counts as congestion and shrinks the limit
+        private Duration latencyThreshold;
+
+        // factor applied to the limit on congestion
+        private double backoffRatio = 0.9;
+
+        public Route() {
+        }
+
+        Route(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyThreshold = latencyThreshold;
+        }
+    }
+}
@@ -1,26 +1,43 @@
 package org.spring.liquibase.config;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.spring.liquibase.entity.Role;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
-@AllArgsConstructor
-@Builder
 public class CustomUserDetails implements UserDetails {
-    private String username;
-    private String password;
-    private Set<String> roles;
+    private final String username;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
+
+    // Authorities are built once here and shared by every check made against the (cached) principal.
+    @Builder
+    public CustomUserDetails(String username, String password, Set<Role> roles) {
+        this.username = username;
+        this.password = password;
+        this.authorities = roles.stream()
+                .map(Role::getAuthority)
+                .toList();
+    }
+
+    private CustomUserDetails(String username, String password, List<GrantedAuthority> authorities) {
+        this.username = username;
+        this.password = password;
+        this.authorities = authorities;
+    }
+
+    // Same principal with a rehashed password.
+    public CustomUserDetails withPassword(String password) {
+        return new CustomUserDetails(this.username, password, this.authorities);
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return this.roles.stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                .toList();
+        return this.authorities;
     }
 
     @Override
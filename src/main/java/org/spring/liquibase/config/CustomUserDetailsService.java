@@ -3,18 +3,25 @@ package org.spring.liquibase.config;
 import lombok.RequiredArgsConstructor;
 import org.spring.liquibase.entity.User;
 import org.spring.liquibase.repository.UserRepository;
-import org.spring.liquibase.service.userService.UserServiceImpl;
+import org.spring.liquibase.service.userService.UserChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     final UserRepository userRepository;
+    final UserCache userCache;
+    final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Юзер с юзернейм " + username + " не найден"));
@@ -25,4 +32,18 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .roles(user.getRoles())
                 .build();
     }
+
+    // Called by DaoAuthenticationProvider with the rehashed password after a successful login. The cached
+    // principal is replaced too, otherwise the next login from the cache would see the old hash and rehash again.
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByUsername(user.getUsername(), newPassword).ifPresent(userId ->
+                eventPublisher.publishEvent(
+                        new UserChangedEvent(userId, UserChangedEvent.ChangeType.UPDATED, user.getUsername())));
+
+        UserDetails updated = ((CustomUserDetails) user).withPassword(newPassword);
+        userCache.putUserInCache(updated);
+        return updated;
+    }
 }
@@ -0,0 +1,31 @@
+package org.spring.liquibase.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class DataSourceRoutingProperties {
+    private boolean enabled;
+
+    // After committing a write, a principal's read-only transactions stay on the primary this long, so it reads
+    // its own writes despite replica lag. Zero routes every read-only transaction to the replicas.
+    private Duration readYourWritesWindow = Duration.ofSeconds(2);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        // Applies the Liquibase changelog at startup; only for local stand-ins that do not replicate the primary.
+        private boolean migrate;
+    }
+}
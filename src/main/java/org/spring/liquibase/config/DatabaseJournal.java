@@ -0,0 +1,153 @@
+package org.spring.liquibase.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only redo log of the in-memory database, split into numbered segment files. Every entry is one line of
+ * SQL (string literals never contain a raw line break), so a line cut short by a crash is recognised by its
+ * missing terminator and skipped on replay. Entries are row after-images and can be replayed more than once.
+ */
+@Slf4j
+public class DatabaseJournal implements Closeable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".sql";
+
+    private final Path directory;
+    private final boolean syncOnAppend;
+
+    private FileChannel channel;
+    private long segment;
+    private boolean dirty;
+
+    public DatabaseJournal(Path directory, boolean syncOnAppend) {
+        this.directory = directory;
+        this.syncOnAppend = syncOnAppend;
+        try {
+            Files.createDirectories(directory);
+            this.segment = segments(directory).stream().mapToLong(DatabaseJournal::segmentNumber).max().orElse(0) + 1;
+            this.channel = open(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void append(String entry) {
+        try {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(entry + "\n");
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (syncOnAppend) {
+                channel.force(false);
+            } else {
+                dirty = true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the database journal", e);
+        }
+    }
+
+    public synchronized void sync() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            channel.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync the database journal", e);
+        }
+    }
+
+    // Starts a new segment and returns the number of the one just closed.
+    public synchronized long rotate() {
+        sync();
+        try {
+            channel.close();
+            channel = open(++segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return segment - 1;
+    }
+
+    public void deleteSegmentsBefore(long segment) {
+        try {
+            for (Path path : segments(directory)) {
+                if (segmentNumber(path) < segment) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    private FileChannel open(long segment) throws IOException {
+        return FileChannel.open(directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Applies every complete entry of every segment, oldest first; returns the number of entries applied.
+    public static int replay(Path directory, Connection connection) throws IOException, SQLException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+
+        int applied = 0;
+        try (Statement statement = connection.createStatement()) {
+            for (Path path : segments(directory)) {
+                String content = Files.readString(path, StandardCharsets.UTF_8);
+                int start = 0;
+                int end;
+                while ((end = content.indexOf('\n', start)) >= 0) {
+                    statement.execute(content.substring(start, end));
+                    applied++;
+                    start = end + 1;
+                }
+                if (start < content.length()) {
+                    log.warn("Skipping incomplete last entry of {}", path);
+                }
+            }
+        }
+        return applied;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(DatabaseJournal::segmentNumber))
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,189 @@
+package org.spring.liquibase.config;
+
+import jakarta.persistence.EntityManager;
+import org.spring.liquibase.service.bookService.BookChangedEvent;
+import org.spring.liquibase.service.userService.UserChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.support.rowset.SqlRowSetMetaData;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Journals the after-image of every changed book and user. Inside a transaction the changed ids are collected and
+ * journaled together right before the commit, on the transaction's own connection: one query per table, one entry
+ * and one sync per commit, so a commit is never acknowledged ahead of its journal entry and a bulk write does not
+ * pay a sync per row. Writes outside a transaction are journaled right after they commit. audit_log and the
+ * Liquibase bookkeeping tables are only covered by snapshots.
+ */
+public class DatabaseJournalListener {
+    private static final int IDS_PER_QUERY = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final DatabaseJournal journal;
+
+    public DatabaseJournalListener(JdbcTemplate jdbcTemplate, EntityManager entityManager, DatabaseJournal journal) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.journal = journal;
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        record(changes -> {
+            changes.bookIds.add(event.getBookId());
+            if (event.getType() == BookChangedEvent.ChangeType.DELETED) {
+                changes.deletedBookIds.add(event.getBookId());
+            }
+        });
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        record(changes -> changes.userIds.add(event.getUserId()));
+    }
+
+    private void record(Consumer<PendingChanges> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingChanges changes = new PendingChanges();
+            change.accept(changes);
+            write(changes);
+            return;
+        }
+
+        PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        change.accept(changes);
+    }
+
+    private void write(PendingChanges changes) {
+        List<String> statements = new ArrayList<>();
+        statements.addAll(afterImages("books", "id", changes.bookIds));
+        statements.addAll(afterImages("book_tombstones", "book_id", changes.deletedBookIds));
+        statements.addAll(afterImages("users", "id", changes.userIds));
+        if (!statements.isEmpty()) {
+            journal.append(String.join("; ", statements));
+        }
+    }
+
+    // MERGE of every row that exists, one DELETE for the keys that no longer do.
+    private List<String> afterImages(String table, String keyColumn, Set<Long> keys) {
+        List<String> statements = new ArrayList<>();
+        List<Long> remaining = new ArrayList<>(keys);
+        for (int from = 0; from < remaining.size(); from += IDS_PER_QUERY) {
+            List<Long> chunk = remaining.subList(from, Math.min(from + IDS_PER_QUERY, remaining.size()));
+            Set<Long> missing = new LinkedHashSet<>(chunk);
+            SqlRowSet rows = jdbcTemplate.queryForRowSet("SELECT * FROM " + table + " WHERE " + keyColumn
+                    + " IN (" + join(chunk) + ")");
+            while (rows.next()) {
+                missing.remove(rows.getLong(keyColumn));
+                statements.add(merge(table, keyColumn, rows));
+            }
+            if (!missing.isEmpty()) {
+                statements.add("DELETE FROM " + table + " WHERE " + keyColumn + " IN (" + join(missing) + ")");
+            }
+        }
+        return statements;
+    }
+
+    private static String join(Collection<Long> keys) {
+        return keys.stream().map(String::valueOf).collect(Collectors.joining(", "));
+    }
+
+    // Ids changed by the current transaction, written by the last step before it commits.
+    private class PendingChanges implements TransactionSynchronization {
+        private final Set<Long> bookIds = new LinkedHashSet<>();
+        private final Set<Long> deletedBookIds = new LinkedHashSet<>();
+        private final Set<Long> userIds = new LinkedHashSet<>();
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+        // Hibernate would only flush on commit, after the rows have been read here.
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                entityManager.flush();
+            }
+            write(this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DatabaseJournalListener.this);
+        }
+    }
+
+    private static String merge(String table, String keyColumn, SqlRowSet row) {
+        SqlRowSetMetaData metaData = row.getMetaData();
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (i > 1) {
+                columns.append(", ");
+                values.append(", ");
+            }
+            columns.append(metaData.getColumnName(i));
+            values.append(literal(row.getObject(i)));
+        }
+
+        return "MERGE INTO " + table + " (" + columns + ") KEY (" + keyColumn + ") VALUES (" + values + ")";
+    }
+
+    static String literal(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof java.sql.Timestamp) {
+            return "TIMESTAMP '" + value + "'";
+        }
+        return string(value.toString());
+    }
+
+    // Control characters go through STRINGDECODE, so an entry always stays on one line.
+    private static String string(String value) {
+        boolean plain = value.chars().noneMatch(c -> c < 0x20);
+        if (plain) {
+            return "'" + value.replace("'", "''") + "'";
+        }
+
+        StringBuilder escaped = new StringBuilder("STRINGDECODE('");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                case '\\' -> escaped.append("\\\\");
+                case '\'' -> escaped.append("''");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.append("')").toString();
+    }
+}
@@ -0,0 +1,158 @@
+package org.spring.liquibase.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durability of the in-memory H2 database ({@code app.in-memory.enabled=true}). On boot the database is rebuilt
+ * from the last snapshot, or copied from {@code source-url} the first time, and the journal is replayed on top.
+ * While running, a compressed {@code SCRIPT} snapshot is written every {@code snapshot-interval} and on shutdown.
+ * The segment that was current until a snapshot started is kept one round longer, because a transaction
+ * journaled just before the rotation may only commit after the snapshot has been taken.
+ */
+@Slf4j
+public class InMemoryDatabase implements SmartLifecycle {
+    private final DataSource dataSource;
+    private final DatabaseJournal journal;
+    private final InMemoryDatabaseProperties properties;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public InMemoryDatabase(DataSource dataSource, DatabaseJournal journal, InMemoryDatabaseProperties properties) {
+        this.dataSource = dataSource;
+        this.journal = journal;
+        this.properties = properties;
+    }
+
+    static void restore(DataSource dataSource, InMemoryDatabaseProperties properties, String username,
+                        String password) {
+        Path snapshot = properties.getSnapshotFile().toAbsolutePath();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            if (Files.exists(snapshot)) {
+                statement.execute("RUNSCRIPT FROM " + quote(snapshot) + " COMPRESSION ZIP");
+                log.info("Restored the in-memory database from {}", snapshot);
+            } else {
+                copySource(statement, properties.getSourceUrl(), username, password);
+            }
+
+            int replayed = DatabaseJournal.replay(properties.getJournalDirectory(), connection);
+            if (replayed > 0) {
+                log.info("Replayed {} journal entries", replayed);
+                // replayed rows may be ahead of the sequence values saved in the snapshot
+                statement.execute("ALTER SEQUENCE books_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 " +
+                        "FROM books)");
+                statement.execute("ALTER SEQUENCE books_change_seq RESTART WITH (SELECT GREATEST(" +
+                        "COALESCE(MAX(change_seq), 0), (SELECT COALESCE(MAX(change_seq), 0) FROM book_tombstones)) " +
+                        "+ 1 FROM books)");
+                statement.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 " +
+                        "FROM users)");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to restore the in-memory database", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void copySource(Statement statement, String sourceUrl, String username, String password)
+            throws SQLException, IOException {
+        Path script = Files.createTempFile("lib_db_source", ".zip");
+        try {
+            try (Connection source = DriverManager.getConnection(sourceUrl + ";IFEXISTS=TRUE", username, password);
+                 Statement sourceStatement = source.createStatement()) {
+                sourceStatement.execute("SCRIPT TO " + quote(script) + " COMPRESSION ZIP");
+            } catch (SQLException e) {
+                log.info("No database at {}, starting empty: {}", sourceUrl, e.getMessage());
+                return;
+            }
+            statement.execute("RUNSCRIPT FROM " + quote(script) + " COMPRESSION ZIP");
+            log.info("Loaded {} into memory", sourceUrl);
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    // Written next to the target and renamed over it, so a crash mid-snapshot leaves the previous one intact.
+    public synchronized void snapshot() {
+        long previousSegment = journal.rotate();
+        Path snapshot = properties.getSnapshotFile().toAbsolutePath();
+        Path partial = snapshot.resolveSibling(snapshot.getFileName() + ".part");
+
+        long start = System.nanoTime();
+        new JdbcTemplate(dataSource).execute("SCRIPT TO " + quote(partial) + " COMPRESSION ZIP");
+        try {
+            Files.move(partial, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        journal.deleteSegmentsBefore(previousSegment);
+        log.info("Snapshot written to {} in {} ms", snapshot,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static String quote(Path path) {
+        return "'" + path.toAbsolutePath().toString().replace("'", "''") + "'";
+    }
+
+    // The first snapshot also captures whatever Liquibase changed after the restore.
+    @Override
+    public void start() {
+        snapshot();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long snapshotMillis = properties.getSnapshotInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::scheduledSnapshot, snapshotMillis, snapshotMillis,
+                TimeUnit.MILLISECONDS);
+        if (properties.getJournalSync() == InMemoryDatabaseProperties.JournalSync.INTERVAL) {
+            long syncMillis = properties.getJournalSyncInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(journal::sync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Snapshot failed, the journal keeps growing until the next one succeeds", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        snapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Below AuditLog (0), so the audit entries still queued at shutdown make it into the final snapshot.
+    @Override
+    public int getPhase() {
+        return -100;
+    }
+}
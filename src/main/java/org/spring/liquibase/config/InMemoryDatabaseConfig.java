@@ -0,0 +1,45 @@
+package org.spring.liquibase.config;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Serves every query from an in-memory H2 database, made durable by {@link InMemoryDatabase} snapshots and the
+ * {@link DatabaseJournal}. Enabled by the "in-memory" profile; not meant to be combined with replica routing.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.in-memory.enabled", havingValue = "true")
+@EnableConfigurationProperties(InMemoryDatabaseProperties.class)
+public class InMemoryDatabaseConfig {
+
+    // static: post-processors are instantiated before the rest of the configuration
+    @Bean
+    static InMemoryDatabaseLoader inMemoryDatabaseLoader(Environment environment) {
+        return new InMemoryDatabaseLoader(environment);
+    }
+
+    @Bean(destroyMethod = "close")
+    DatabaseJournal databaseJournal(InMemoryDatabaseProperties properties) {
+        return new DatabaseJournal(properties.getJournalDirectory(),
+                properties.getJournalSync() == InMemoryDatabaseProperties.JournalSync.COMMIT);
+    }
+
+    @Bean
+    InMemoryDatabase inMemoryDatabase(DataSource dataSource, DatabaseJournal databaseJournal,
+                                      InMemoryDatabaseProperties properties) {
+        return new InMemoryDatabase(dataSource, databaseJournal, properties);
+    }
+
+    @Bean
+    DatabaseJournalListener databaseJournalListener(JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                                                    DatabaseJournal databaseJournal) {
+        return new DatabaseJournalListener(jdbcTemplate, entityManager, databaseJournal);
+    }
+}
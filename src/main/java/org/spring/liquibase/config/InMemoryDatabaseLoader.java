@@ -0,0 +1,27 @@
+package org.spring.liquibase.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+// Fills the in-memory database as soon as the data source exists, before Liquibase or Hibernate touch it.
+public class InMemoryDatabaseLoader implements BeanPostProcessor {
+    private final Environment environment;
+
+    public InMemoryDatabaseLoader(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+            InMemoryDatabaseProperties properties = Binder.get(environment)
+                    .bindOrCreate("app.in-memory", InMemoryDatabaseProperties.class);
+            InMemoryDatabase.restore(dataSource, properties, environment.getProperty("spring.datasource.username"),
+                    environment.getProperty("spring.datasource.password"));
+        }
+        return bean;
+    }
+}
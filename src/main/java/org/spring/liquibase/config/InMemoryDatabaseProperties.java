@@ -0,0 +1,32 @@
+package org.spring.liquibase.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.in-memory")
+public class InMemoryDatabaseProperties {
+    private boolean enabled;
+
+    // copied into memory on the first start, while there is no snapshot yet
+    private String sourceUrl = "jdbc:h2:file:./lib_db";
+
+    private Path snapshotFile = Path.of("lib_db_snapshot.zip");
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    private Path journalDirectory = Path.of("lib_db_journal");
+    private JournalSync journalSync = JournalSync.COMMIT;
+
+    // INTERVAL only: the most a crash can lose
+    private Duration journalSyncInterval = Duration.ofMillis(100);
+
+    public enum JournalSync {
+        // fsync before the transaction commits
+        COMMIT,
+        // write-behind: fsync every journal-sync-interval
+        INTERVAL
+    }
+}
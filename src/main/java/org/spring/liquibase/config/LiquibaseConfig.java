@@ -0,0 +1,15 @@
+package org.spring.liquibase.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class LiquibaseConfig {
+
+    // static: post-processors are instantiated before the rest of the configuration
+    @Bean
+    static LiquibaseFastPath liquibaseFastPath(Environment environment) {
+        return new LiquibaseFastPath(environment);
+    }
+}
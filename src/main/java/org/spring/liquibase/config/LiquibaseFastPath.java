@@ -0,0 +1,119 @@
+package org.spring.liquibase.config;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Skips Liquibase on boot when nothing it could apply has changed. It hashes every file next to the master
+ * changelog, plus the contexts and labels, and compares the result with the checksum saved in
+ * {@code schema_state} after the last full run. On a match, Liquibase never takes its lock or reads the
+ * schema. Off unless {@code app.liquibase.fast-path=true}. The flag is read at runtime, not through a
+ * condition, so AOT-built artifacts can still turn it on.
+ */
+@Slf4j
+public class LiquibaseFastPath implements BeanPostProcessor {
+    private static final String STATE_NAME = "changelog";
+
+    private final Environment environment;
+    private final Set<String> skippedBeans = ConcurrentHashMap.newKeySet();
+
+    public LiquibaseFastPath(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof SpringLiquibase liquibase && isEnabled()) {
+            String checksum = checksum(liquibase);
+            if (checksum.equals(storedChecksum(liquibase))) {
+                log.info("Changelog checksum {} matches the last applied state, skipping Liquibase", checksum);
+                liquibase.setShouldRun(false);
+                skippedBeans.add(beanName);
+            }
+        }
+        return bean;
+    }
+
+    // Only reached when Liquibase ran and succeeded, a failed update aborts the bean creation before this point.
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof SpringLiquibase liquibase && isEnabled() && !skippedBeans.remove(beanName)) {
+            new JdbcTemplate(liquibase.getDataSource()).update(
+                    "merge into schema_state (name, checksum, updated_at) key (name) values (?, ?, current_timestamp)",
+                    STATE_NAME, checksum(liquibase));
+        }
+        return bean;
+    }
+
+    private boolean isEnabled() {
+        return environment.getProperty("app.liquibase.fast-path", Boolean.class, false);
+    }
+
+    private static String storedChecksum(SpringLiquibase liquibase) {
+        try {
+            List<String> checksums = new JdbcTemplate(liquibase.getDataSource()).queryForList(
+                    "select checksum from schema_state where name = ?", String.class, STATE_NAME);
+            return checksums.isEmpty() ? null : checksums.get(0);
+        } catch (DataAccessException e) {
+            // first boot on this database: the table is created by the changelog itself
+            return null;
+        }
+    }
+
+    static String checksum(SpringLiquibase liquibase) {
+        String changeLog = liquibase.getChangeLog();
+        String directory = changeLog.substring(changeLog.indexOf(':') + 1, changeLog.lastIndexOf('/') + 1);
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(liquibase.getResourceLoader());
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Resource[] resources = resolver.getResources("classpath*:" + directory + "**/*.*");
+            Arrays.sort(resources, Comparator.comparing(resource -> relativePath(resource, directory)));
+            for (Resource resource : resources) {
+                digest.update(relativePath(resource, directory).getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = resource.getInputStream()) {
+                    digest.update(in.readAllBytes());
+                }
+            }
+            digest.update(Objects.toString(liquibase.getContexts()).getBytes(StandardCharsets.UTF_8));
+            digest.update(Objects.toString(liquibase.getLabelFilter()).getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // relative to the changelog directory, so the checksum does not depend on where the jar or classes live
+    private static String relativePath(Resource resource, String directory) {
+        try {
+            String uri = resource.getURI().toString();
+            return uri.substring(uri.lastIndexOf(directory) + directory.length());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
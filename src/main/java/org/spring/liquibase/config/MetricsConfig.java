@@ -0,0 +1,17 @@
+package org.spring.liquibase.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Endpoint latency (http.server.requests), HikariCP pool gauges and Hibernate statistics are bound by
+// Spring Boot; this adds the aspect behind the @Timed service timers.
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
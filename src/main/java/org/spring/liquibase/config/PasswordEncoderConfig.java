@@ -0,0 +1,51 @@
+package org.spring.liquibase.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(PasswordHashingProperties.class)
+public class PasswordEncoderConfig {
+
+    private static final String BCRYPT_ID = "bcrypt";
+    // Written before the iteration count was part of the id, always with Spring Security's default count.
+    private static final String LEGACY_PBKDF2_ID = "pbkdf2@SpringSecurity_v5_8";
+
+    // New hashes are stored as {id}hash. Hashes written before the prefix existed are plain BCrypt;
+    // they still match and, like any hash not in the current algorithm and cost, are rewritten on login.
+    // Pbkdf2PasswordEncoder keeps no iteration count in the hash, so the count goes into the id instead: every
+    // known count has its own delegate, and a hash under any id but the current one counts as outdated.
+    @Bean
+    PasswordEncoder passwordEncoder(PasswordHashingProperties properties) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptCostPasswordEncoder bcrypt = new BCryptCostPasswordEncoder(properties.getBcryptStrength());
+        encoders.put(BCRYPT_ID, bcrypt);
+        encoders.put(LEGACY_PBKDF2_ID, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        properties.getPbkdf2PreviousIterations().forEach(iterations ->
+                encoders.put(pbkdf2Id(iterations), pbkdf2(iterations)));
+        encoders.put(pbkdf2Id(properties.getPbkdf2Iterations()), pbkdf2(properties.getPbkdf2Iterations()));
+
+        String idForEncode = properties.getAlgorithm() == PasswordHashingProperties.Algorithm.PBKDF2
+                ? pbkdf2Id(properties.getPbkdf2Iterations())
+                : BCRYPT_ID;
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    private static String pbkdf2Id(int iterations) {
+        return "pbkdf2-" + iterations;
+    }
+
+    private static Pbkdf2PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+}
@@ -0,0 +1,29 @@
+package org.spring.liquibase.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.password-hashing")
+public class PasswordHashingProperties {
+    // used for new hashes; stored hashes of any known algorithm still match and are rehashed on login
+    private Algorithm algorithm = Algorithm.BCRYPT;
+
+    // log2 of the rounds, 4..31; every step doubles the cost of a login
+    private int bcryptStrength = 10;
+
+    // part of the encoding id of new hashes ({pbkdf2-310000}); a hash with another count is rehashed on login
+    private int pbkdf2Iterations = 310_000;
+
+    // earlier pbkdf2-iterations whose hashes may still be stored; a count that is neither this nor the current one
+    // cannot be verified, so keep a value here until no stored hash uses it
+    private List<Integer> pbkdf2PreviousIterations = new ArrayList<>();
+
+    public enum Algorithm {
+        BCRYPT,
+        PBKDF2
+    }
+}
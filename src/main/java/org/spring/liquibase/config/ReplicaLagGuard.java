@@ -0,0 +1,58 @@
+package org.spring.liquibase.config;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each principal last committed a read-write transaction, so that its reads can be kept on the
+ * primary until the replicas have had time to catch up. Requests without an authenticated principal share one slot.
+ */
+public class ReplicaLagGuard implements TransactionExecutionListener {
+    private static final String ANONYMOUS = "";
+
+    private final Duration readYourWritesWindow;
+    private final Clock clock;
+    private final Map<String, Instant> lastWriteByPrincipal = new ConcurrentHashMap<>();
+
+    public ReplicaLagGuard(Duration readYourWritesWindow, Clock clock) {
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly() && !readYourWritesWindow.isZero()) {
+            lastWriteByPrincipal.put(currentPrincipal(), clock.instant());
+        }
+    }
+
+    public boolean mustReadFromPrimary() {
+        String principal = currentPrincipal();
+        Instant lastWrite = lastWriteByPrincipal.get(principal);
+        if (lastWrite == null) {
+            return false;
+        }
+
+        if (clock.instant().isBefore(lastWrite.plus(readYourWritesWindow))) {
+            return true;
+        }
+
+        lastWriteByPrincipal.remove(principal, lastWrite);
+        return false;
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        return authentication == null ? ANONYMOUS : authentication.getName();
+    }
+}
@@ -0,0 +1,33 @@
+package org.spring.liquibase.config;
+
+import org.hibernate.Cache;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.entity.User;
+import org.spring.liquibase.service.bookService.BookChangedEvent;
+import org.spring.liquibase.service.userService.UserChangedEvent;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * The single-statement native writes (FINAL TABLE / OLD TABLE) bypass the second-level cache, so the changed
+ * rows are evicted once their transaction has completed, whether it committed or rolled back.
+ */
+public class SecondLevelCacheEvictor {
+    private final Cache cache;
+
+    public SecondLevelCacheEvictor(Cache cache) {
+        this.cache = cache;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        cache.evictEntityData(Book.class, event.getBookId());
+    }
+
+    // The username may have changed, so cached findByUsername results go as well.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        cache.evictEntityData(User.class, event.getUserId());
+        cache.evictQueryRegion(SecondLevelCacheConfig.USER_BY_USERNAME_REGION);
+    }
+}
@@ -0,0 +1,23 @@
+package org.spring.liquibase.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Size and time-to-live per Hibernate cache region; every region Hibernate asks for must be listed.
+@Data
+@ConfigurationProperties(prefix = "app.second-level-cache")
+public class SecondLevelCacheProperties {
+    private Map<String, Region> regions = new HashMap<>();
+
+    @Data
+    public static class Region {
+        private long maximumSize = 10_000;
+
+        // null: entries only leave the region when evicted or invalidated
+        private Duration expireAfterWrite;
+    }
+}
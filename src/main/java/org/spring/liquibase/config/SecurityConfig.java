@@ -9,7 +9,7 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
@@ -29,6 +29,8 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.DELETE, "/books/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.PUT, "/books/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.PATCH, "/books/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().permitAll()
 
         );
@@ -43,16 +45,16 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Hashes not in the configured algorithm and cost are rewritten after a successful login.
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    @Bean
-    AuthenticationProvider defaultAuthenticationProvider(CustomUserDetailsService userDetailsService) {
+    AuthenticationProvider defaultAuthenticationProvider(CustomUserDetailsService userDetailsService,
+                                                         UserCache userCache,
+                                                         PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
         provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        provider.setUserCache(userCache);
         return provider;
 
     }
@@ -1,12 +1,26 @@
 package org.spring.liquibase.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.spring.liquibase.dto.BookBulkDelete;
+import org.spring.liquibase.dto.BookBulkUpdate;
+import org.spring.liquibase.dto.BookChanges;
+import org.spring.liquibase.dto.BookSearchResult;
+import org.spring.liquibase.dto.BookStats;
+import org.spring.liquibase.dto.BulkResult;
 import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.service.bookService.BookResponseCache;
 import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -14,15 +28,41 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookController {
     final private BookServiceImpl bookService;
+    final private ObjectMapper objectMapper;
+    final private BookResponseCache bookResponseCache;
 
     @PostMapping("/add")
     public Book addBook(@RequestBody Book book) {
         return bookService.saveBook(book);
     }
 
+    @PostMapping("/bulk")
+    public List<Book> addBooks(@RequestBody List<Book> books) {
+        return bookService.saveBooks(books);
+    }
+
+    @PatchMapping("/bulk")
+    public BulkResult updateBooks(@RequestBody BookBulkUpdate request) {
+        return bookService.updateBooks(request);
+    }
+
+    @DeleteMapping("/bulk")
+    public BulkResult deleteBooks(@RequestBody BookBulkDelete request) {
+        return bookService.deleteBooks(request);
+    }
+
+    // A conditional request is answered from the version column alone; the book is only loaded on a miss.
     @GetMapping("/{id}")
-    public Book getBook(@PathVariable Long id) {
-        return bookService.getBookById(id);
+    public ResponseEntity<Book> getBook(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(String.valueOf(bookService.getBookVersion(id)))) {
+            return null;
+        }
+
+        Book book = bookService.getBookById(id);
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(book.getVersion()))
+                .body(book);
     }
 
     @DeleteMapping("/{id}")
@@ -31,29 +71,128 @@ public class BookController {
         return ResponseEntity.ok().build();
     }
 
+    // With If-Match set to the ETag of GET /books/{id} the write only applies to that version, otherwise 409.
     @PutMapping("/{id}")
-    public Book updateBook(@PathVariable Long id, @RequestBody Book book) {
-        return bookService.updateBook(id, book);
+    public Book updateBook(@PathVariable Long id, @RequestBody Book book,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return bookService.updateBook(id, book, expectedVersion(ifMatch));
     }
 
     @PatchMapping("/{id}")
-    public Book patchBook(@PathVariable Long id, @RequestBody Book book) {
-        return bookService.patchBook(id, book);
+    public Book patchBook(@PathVariable Long id, @RequestBody Book book,
+                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return bookService.patchBook(id, book, expectedVersion(ifMatch));
+    }
+
+    // A weak or foreign ETag matches no version, so the write is rejected rather than applied blindly.
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.equals("*")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(ifMatch.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
     }
 
+    // The cached body is keyed by the catalog version, so it always matches the ETag sent with it. The ETag is
+    // weak because the gzipped and identity bodies differ byte for byte (see cachedJson).
+    // With ?fields=id,title the books are read as BookSummary rows (id, title and price, no entities) and only the
+    // requested fields are returned (see BookFields).
     @GetMapping("/getAll")
-    public List<Book> getAllBooks() {
-        return bookService.getAllBooks();
+    public ResponseEntity<byte[]> getAllBooks(@RequestParam(required = false) String fields, WebRequest request) {
+        String catalogVersion = bookService.getCatalogVersion();
+        String eTag = "W/\"" + catalogVersion + "\"";
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        BookResponseCache.CachedResponse response = fields == null
+                ? bookResponseCache.get("getAll:" + catalogVersion, bookService::getAllBooks)
+                : bookResponseCache.get("getAll:" + catalogVersion + ":fields=" + fields,
+                        () -> bookService.getAllBookSummaries(fields));
+        return cachedJson(ResponseEntity.ok().eTag(eTag), response, request);
+    }
+
+    // Constant-memory export: one JSON document per line, written while the rows are read.
+    @GetMapping(value = "/getAll", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = out -> bookService.exportAllBooks(book -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(book));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // Incremental sync: rows inserted, updated or deleted after the token, oldest first.
+    @GetMapping("/changes")
+    public BookChanges getChanges(@RequestParam(required = false) String since,
+                                  @RequestParam(defaultValue = "100") int limit) {
+        return bookService.getChangesSince(since, limit);
+    }
+
+    // X-Search-Truncated: true when a short prefix matched too many title tokens and results may be missing.
+    @GetMapping("/search")
+    public ResponseEntity<List<Book>> searchBooks(@RequestParam("q") String query,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        BookSearchResult result = bookService.searchBooks(query, limit);
+        return ResponseEntity.ok()
+                .header("X-Search-Truncated", String.valueOf(result.isTruncated()))
+                .body(result.getBooks());
+    }
+
+    @GetMapping("/stats")
+    public BookStats getStats(@RequestParam(defaultValue = "10") int buckets) {
+        return bookService.getBookStats(buckets);
     }
 
     @GetMapping("/sortByMax")
-    public List<Book> sortMaxPrice() {
-        return bookService.getBooksSortByMaxPrice();
+    public ResponseEntity<byte[]> sortMaxPrice(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "20") int size,
+                                               @RequestParam(required = false) String fields,
+                                               WebRequest request) {
+        String key = "sortByMax:" + cursor + ":" + size;
+        BookResponseCache.CachedResponse response = fields == null
+                ? bookResponseCache.get(key, () -> bookService.getBooksSortByMaxPrice(cursor, size))
+                : bookResponseCache.get(key + ":fields=" + fields,
+                        () -> bookService.getBookSummariesSortByMaxPrice(cursor, size, fields));
+        return cachedJson(ResponseEntity.ok(), response, request);
     }
 
     @GetMapping("/sortByMin")
-    public List<Book> sortMinPrice() {
-        return bookService.getBooksSortByMinPrice();
+    public ResponseEntity<byte[]> sortMinPrice(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "20") int size,
+                                               @RequestParam(required = false) String fields,
+                                               WebRequest request) {
+        String key = "sortByMin:" + cursor + ":" + size;
+        BookResponseCache.CachedResponse response = fields == null
+                ? bookResponseCache.get(key, () -> bookService.getBooksSortByMinPrice(cursor, size))
+                : bookResponseCache.get(key + ":fields=" + fields,
+                        () -> bookService.getBookSummariesSortByMinPrice(cursor, size, fields));
+        return cachedJson(ResponseEntity.ok(), response, request);
+    }
+
+    // The stored bytes are written as they are; the gzipped copy goes to clients that accept it. Both share
+    // Vary: Accept-Encoding, and any ETag set on the builder must be weak so caches never swap the two bodies.
+    private static ResponseEntity<byte[]> cachedJson(ResponseEntity.BodyBuilder builder,
+                                                     BookResponseCache.CachedResponse response,
+                                                     WebRequest request) {
+        builder.contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (response.getGzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzip());
+        }
+        return builder.body(response.getJson());
     }
 
 }
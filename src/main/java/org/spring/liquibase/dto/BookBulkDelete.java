@@ -0,0 +1,17 @@
+package org.spring.liquibase.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Selects books either by ids or by a price range; an open end of the range is left null.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBulkDelete {
+    private List<Long> ids;
+    private Integer minPrice;
+    private Integer maxPrice;
+}
@@ -0,0 +1,20 @@
+package org.spring.liquibase.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Selects books either by ids or by a price range, then sets price or changes it by percent.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBulkUpdate {
+    private List<Long> ids;
+    private Integer minPrice;
+    private Integer maxPrice;
+
+    private Integer price;
+    private Integer percent;
+}
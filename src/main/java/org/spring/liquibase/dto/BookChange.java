@@ -0,0 +1,17 @@
+package org.spring.liquibase.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.spring.liquibase.entity.Book;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChange {
+    private long bookId;
+    private boolean deleted;
+
+    // current state of the book; null when deleted
+    private Book book;
+}
@@ -0,0 +1,19 @@
+package org.spring.liquibase.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChanges {
+    private List<BookChange> changes;
+
+    // pass back as since= on the next call; returned even when there are no changes
+    private String nextToken;
+
+    private boolean hasMore;
+}
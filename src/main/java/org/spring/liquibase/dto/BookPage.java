@@ -0,0 +1,18 @@
+package org.spring.liquibase.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.spring.liquibase.entity.Book;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPage {
+    private List<Book> books;
+
+    // null when there are no more pages
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package org.spring.liquibase.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.spring.liquibase.entity.Book;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSearchResult {
+    private List<Book> books;
+
+    // a query term was a prefix of more title tokens than the index expands, so matches may be missing
+    private boolean truncated;
+}
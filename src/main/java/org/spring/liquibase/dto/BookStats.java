@@ -0,0 +1,18 @@
+package org.spring.liquibase.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookStats {
+    private long count;
+    private Integer minPrice;
+    private Integer maxPrice;
+    private Double averagePrice;
+    private List<PriceBucket> histogram;
+}
@@ -0,0 +1,19 @@
+package org.spring.liquibase.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// BookPage with only the fields a client asked for.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSummaryPage {
+    private List<Map<String, Object>> books;
+
+    // null when there are no more pages
+    private String nextCursor;
+}
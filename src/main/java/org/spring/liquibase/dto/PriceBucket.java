@@ -0,0 +1,15 @@
+package org.spring.liquibase.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Books with fromPrice <= price < toPrice.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucket {
+    private int fromPrice;
+    private int toPrice;
+    private long count;
+}
@@ -1,20 +1,37 @@
 package org.spring.liquibase.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.spring.liquibase.config.SecondLevelCacheConfig;
 
 @Entity
 @Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.BOOK_REGION)
 @Data
 @NoArgsConstructor
 public class Book {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private long id;
 
     private String title;
 
     @Column(nullable = false)
     private Integer price;
+
+    // Bumped on every update; doubles as the optimistic lock and the ETag of GET /books/{id}.
+    @Version
+    private long version;
+
+    // Drawn from books_change_seq by the database on every insert and update (GET /books/changes);
+    // not refreshed on the entity after a write.
+    @JsonIgnore
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private long changeSeq;
 }
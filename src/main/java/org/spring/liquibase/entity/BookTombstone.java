@@ -0,0 +1,24 @@
+package org.spring.liquibase.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Left behind by every book delete so GET /books/changes can report it; written by the delete statements.
+@Entity
+@Table(name = "book_tombstones")
+@Data
+@NoArgsConstructor
+public class BookTombstone {
+    @Id
+    @Column(name = "book_id")
+    private long bookId;
+
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+}
@@ -0,0 +1,20 @@
+package org.spring.liquibase.entity;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+// Stored as one bit of users.roles; a bit must never be reused for another role.
+@Getter
+public enum Role {
+    USER(1),
+    ADMIN(1 << 1);
+
+    private final int bit;
+    private final GrantedAuthority authority;
+
+    Role(int bit) {
+        this.bit = bit;
+        this.authority = new SimpleGrantedAuthority("ROLE_" + name());
+    }
+}
@@ -0,0 +1,32 @@
+package org.spring.liquibase.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+@Converter
+public class RoleSetConverter implements AttributeConverter<Set<Role>, Integer> {
+    @Override
+    public Integer convertToDatabaseColumn(Set<Role> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (Role role : roles) {
+                mask |= role.getBit();
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public Set<Role> convertToEntityAttribute(Integer mask) {
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        for (Role role : Role.values()) {
+            if (mask != null && (mask & role.getBit()) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+}
@@ -3,11 +3,16 @@ package org.spring.liquibase.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.spring.liquibase.config.SecondLevelCacheConfig;
 
 import java.util.Set;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USER_REGION)
 @NoArgsConstructor
 @Data
 public class User {
@@ -21,8 +26,8 @@ public class User {
     @Column(nullable = false)
     private String password;
 
-    @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
-    @ElementCollection(fetch = FetchType.EAGER)
-    @Column(name = "role")
-    private Set<String> roles;
+    // A bitmask of Role.bit, so the user and its roles are one row.
+    @Convert(converter = RoleSetConverter.class)
+    @Column(nullable = false)
+    private Set<Role> roles;
 }
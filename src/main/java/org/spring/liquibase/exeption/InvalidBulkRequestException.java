@@ -0,0 +1,7 @@
+package org.spring.liquibase.exeption;
+
+public class InvalidBulkRequestException extends RuntimeException {
+    public InvalidBulkRequestException(String message) {
+        super(message);
+    }
+}
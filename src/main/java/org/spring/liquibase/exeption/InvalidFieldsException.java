@@ -0,0 +1,7 @@
+package org.spring.liquibase.exeption;
+
+public class InvalidFieldsException extends RuntimeException {
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,78 @@
 package org.spring.liquibase.repository;
 
 import org.spring.liquibase.entity.Book;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+    List<Book> findAllByOrderByPriceAscIdAsc(Limit limit);
+
+    List<Book> findAllByOrderByPriceDescIdDesc(Limit limit);
+
+    // Keyset (seek) pagination over the (price, id) index: the cursor is the last row of the previous page.
+    @Query("select b from Book b where b.price >= :price and (b.price > :price or b.id > :id) " +
+            "order by b.price asc, b.id asc")
+    List<Book> findPageAfterByPriceAsc(@Param("price") Integer price, @Param("id") long id, Limit limit);
+
+    @Query("select b from Book b where b.price <= :price and (b.price < :price or b.id < :id) " +
+            "order by b.price desc, b.id desc")
+    List<Book> findPageAfterByPriceDesc(@Param("price") Integer price, @Param("id") long id, Limit limit);
+
+    // BookSummary variants of the listings: plain column reads, nothing enters the persistence context.
+    @Query("select b.id as id, b.title as title, b.price as price from Book b order by b.id")
+    List<BookSummary> findAllSummaries();
+
+    @Query("select b.id as id, b.title as title, b.price as price from Book b order by b.price asc, b.id asc")
+    List<BookSummary> findSummariesOrderByPriceAsc(Limit limit);
+
+    @Query("select b.id as id, b.title as title, b.price as price from Book b order by b.price desc, b.id desc")
+    List<BookSummary> findSummariesOrderByPriceDesc(Limit limit);
+
+    @Query("select b.id as id, b.title as title, b.price as price from Book b " +
+            "where b.price >= :price and (b.price > :price or b.id > :id) order by b.price asc, b.id asc")
+    List<BookSummary> findSummaryPageAfterByPriceAsc(@Param("price") Integer price, @Param("id") long id,
+                                                     Limit limit);
+
+    @Query("select b.id as id, b.title as title, b.price as price from Book b " +
+            "where b.price <= :price and (b.price < :price or b.id < :id) order by b.price desc, b.id desc")
+    List<BookSummary> findSummaryPageAfterByPriceDesc(@Param("price") Integer price, @Param("id") long id,
+                                                      Limit limit);
+
+    // Keyset over the change sequence: rows inserted or updated in (after, upTo], oldest change first.
+    List<Book> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(long after, long upTo,
+                                                                                       Limit limit);
+
+    // The value books_change_seq hands out next; every write from now on draws this or a higher one.
+    @Query(value = "select base_value from information_schema.sequences where sequence_name = 'BOOKS_CHANGE_SEQ'",
+            nativeQuery = true)
+    long nextChangeSeq();
+
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    // Changes whenever a book is inserted (ids only grow), updated (versions only grow) or deleted (count drops).
+    @Query("select count(b) as bookCount, coalesce(max(b.id), 0) as maxId, " +
+            "coalesce(sum(b.version), 0) as versionSum from Book b")
+    CatalogFingerprint fingerprintCatalog();
+
+    // price is decimal(8,2) in the schema, so min and max are widened to whole numbers that still bound every price.
+    @Query("select count(b) as bookCount, cast(floor(min(b.price)) as Integer) as minPrice, " +
+            "cast(ceiling(max(b.price)) as Integer) as maxPrice, avg(b.price) as averagePrice from Book b")
+    PriceSummary summarizePrices();
+
+    // Buckets are numbered from 0 = [min, min + width); empty buckets are simply absent from the result.
+    // Dividing the decimal price leaves a fraction, so the bucket number is floored in the query itself. The
+    // parameters are cast to decimal, otherwise H2 types the quotient from them and rounds instead of flooring;
+    // the derived table lets the grouping use one expression rather than one per bound parameter.
+    @Query(value = "select bucket, count(*) as bookCount from " +
+            "(select cast(floor((price - cast(:min as decimal(10, 2))) / cast(:width as decimal(10, 2))) as integer) " +
+            "as bucket from books) group by bucket order by bucket", nativeQuery = true)
+    List<PriceBucketCount> countByPriceBucket(@Param("min") int min, @Param("width") int width);
 }
@@ -0,0 +1,34 @@
+package org.spring.liquibase.repository;
+
+import org.spring.liquibase.entity.Book;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface BookRepositoryCustom {
+    // Replaces title and price and bumps the version in one UPDATE; empty if no book has the id or, when version is
+    // not null, the book is no longer at that version.
+    Optional<Book> updateById(long id, String title, Integer price, Long version);
+
+    // Like updateById, but only the non-null columns are written.
+    Optional<Book> patchById(long id, String title, Integer price, Long version);
+
+    // Bulk writes: each call is one statement in its own transaction and returns the rows it touched.
+    // Exactly one of price (new value) and percent (relative change, rounded) is non-null.
+    List<Book> updatePricesByIds(List<Long> ids, Integer price, Integer percent);
+
+    // Up to limit books priced within [minPrice, maxPrice] with an id above afterId, lowest ids first.
+    List<Book> updatePricesInRange(int minPrice, int maxPrice, long afterId, int limit, Integer price, Integer percent);
+
+    // Deletes the book and leaves a tombstone for GET /books/changes in the same statement; 1 or 0 rows.
+    int deleteBookById(long id);
+
+    // Deletes leave a tombstone per book and return the deleted ids.
+    List<Long> deleteBooksByIds(List<Long> ids);
+
+    List<Long> deleteBooksInRange(int minPrice, int maxPrice, int limit);
+
+    // Forward-only cursor over the whole table; must be consumed inside a transaction and closed.
+    Stream<Book> streamAll();
+}
@@ -0,0 +1,178 @@
+package org.spring.liquibase.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.spring.liquibase.entity.Book;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+    private static final String PRICE_RANGE_IDS = "select id from books where price between :minPrice and :maxPrice " +
+            "and id > :afterId order by id fetch first :limit rows only";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<Book> updateById(long id, String title, Integer price, Long version) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("title", title);
+        columns.put("price", price);
+
+        return update(id, version, columns);
+    }
+
+    @Override
+    public Optional<Book> patchById(long id, String title, Integer price, Long version) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        if (title != null) {
+            columns.put("title", title);
+        }
+        if (price != null) {
+            columns.put("price", price);
+        }
+
+        return update(id, version, columns);
+    }
+
+    @Override
+    @Transactional
+    public List<Book> updatePricesByIds(List<Long> ids, Integer price, Integer percent) {
+        Query query = updatePrices("id in (:ids)", price, percent);
+        query.setParameter("ids", ids);
+
+        return books(query);
+    }
+
+    // The id cursor keeps a percent change from picking up rows it has already moved within the range.
+    @Override
+    @Transactional
+    public List<Book> updatePricesInRange(int minPrice, int maxPrice, long afterId, int limit,
+                                          Integer price, Integer percent) {
+        Query query = updatePrices("id in (" + PRICE_RANGE_IDS + ")", price, percent);
+        query.setParameter("minPrice", minPrice);
+        query.setParameter("maxPrice", maxPrice);
+        query.setParameter("afterId", afterId);
+        query.setParameter("limit", limit);
+
+        return books(query);
+    }
+
+    // Run as a query over FINAL TABLE rather than executeUpdate: a native update names no query spaces, so
+    // Hibernate would invalidate every second-level cache region, users included, for each deleted book.
+    @Override
+    @Transactional
+    public int deleteBookById(long id) {
+        Query query = entityManager.createNativeQuery(deleteWithTombstones("id = :id"), Long.class);
+        query.setParameter("id", id);
+
+        return ids(query).size();
+    }
+
+    @Override
+    @Transactional
+    public List<Long> deleteBooksByIds(List<Long> ids) {
+        Query query = entityManager.createNativeQuery(deleteWithTombstones("id in (:ids)"), Long.class);
+        query.setParameter("ids", ids);
+
+        return ids(query);
+    }
+
+    @Override
+    @Transactional
+    public List<Long> deleteBooksInRange(int minPrice, int maxPrice, int limit) {
+        Query query = entityManager.createNativeQuery(deleteWithTombstones("id in (" + PRICE_RANGE_IDS + ")"),
+                Long.class);
+        query.setParameter("minPrice", minPrice);
+        query.setParameter("maxPrice", maxPrice);
+        query.setParameter("afterId", Long.MIN_VALUE);
+        query.setParameter("limit", limit);
+
+        return ids(query);
+    }
+
+    // The scan neither reads nor fills the second-level cache, so it does not push out the books actually in
+    // demand. Hibernate applies a query's own cache mode only while the cursor is opened, not while its rows are
+    // loaded, so the session's mode is switched for the life of the stream instead.
+    @Override
+    public Stream<Book> streamAll() {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+
+        return entityManager.createQuery("select b from Book b", Book.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream()
+                .onClose(() -> session.setCacheMode(cacheMode));
+    }
+
+    // Which rows change is only known to the database, so the whole persistence context is flushed and cleared.
+    private Query updatePrices(String condition, Integer price, Integer percent) {
+        entityManager.flush();
+        entityManager.clear();
+
+        String assignment = price != null
+                ? "price = :price"
+                : "price = cast(round(price * (100 + :percent) / 100.0) as int)";
+        Query query = entityManager.createNativeQuery("select * from final table (update books set " + assignment +
+                ", version = version + 1 where " + condition + ")", Book.class);
+        if (price != null) {
+            query.setParameter("price", price);
+        } else {
+            query.setParameter("percent", percent);
+        }
+
+        return query;
+    }
+
+    private static String deleteWithTombstones(String condition) {
+        return "select book_id from final table (merge into book_tombstones (book_id, change_seq, deleted_at) " +
+                "key (book_id) select id, next value for books_change_seq, current_timestamp " +
+                "from old table (delete from books where " + condition + "))";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Book> books(Query query) {
+        return query.getResultList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> ids(Query query) {
+        return query.getResultList();
+    }
+
+    // H2's FINAL TABLE hands back the row as written by the UPDATE, so no follow-up SELECT is needed.
+    // A copy already in the persistence context would be returned as is, so it is flushed and detached first.
+    private Optional<Book> update(long id, Long version, Map<String, Object> columns) {
+        entityManager.flush();
+        entityManager.detach(entityManager.getReference(Book.class, id));
+
+        String assignments = columns.keySet().stream()
+                .map(column -> column + " = :" + column)
+                .collect(Collectors.joining(", ", "", columns.isEmpty() ? "" : ", "));
+        Query query = entityManager.createNativeQuery("select * from final table (update books set " + assignments +
+                "version = version + 1 where id = :id" + (version != null ? " and version = :version" : "") + ")",
+                Book.class);
+        query.setParameter("id", id);
+        if (version != null) {
+            query.setParameter("version", version);
+        }
+        columns.forEach(query::setParameter);
+
+        @SuppressWarnings("unchecked")
+        List<Book> books = query.getResultList();
+        return books.stream().findFirst();
+    }
+}
@@ -0,0 +1,11 @@
+package org.spring.liquibase.repository;
+
+// Closed projection of the listing endpoints' ?fields= option: only these columns are selected, whichever
+// fields were asked for; BookFields then drops the ones that were not.
+public interface BookSummary {
+    long getId();
+
+    String getTitle();
+
+    Integer getPrice();
+}
@@ -0,0 +1,14 @@
+package org.spring.liquibase.repository;
+
+import org.spring.liquibase.entity.BookTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookTombstoneRepository extends JpaRepository<BookTombstone, Long> {
+    List<BookTombstone> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(long after, long upTo,
+                                                                                                Limit limit);
+}
@@ -0,0 +1,9 @@
+package org.spring.liquibase.repository;
+
+public interface CatalogFingerprint {
+    long getBookCount();
+
+    long getMaxId();
+
+    long getVersionSum();
+}
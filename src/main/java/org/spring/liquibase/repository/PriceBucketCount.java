@@ -0,0 +1,7 @@
+package org.spring.liquibase.repository;
+
+public interface PriceBucketCount {
+    int getBucket();
+
+    long getBookCount();
+}
@@ -0,0 +1,11 @@
+package org.spring.liquibase.repository;
+
+public interface PriceSummary {
+    long getBookCount();
+
+    Integer getMinPrice();
+
+    Integer getMaxPrice();
+
+    Double getAveragePrice();
+}
@@ -1,12 +1,33 @@
 package org.spring.liquibase.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.spring.liquibase.config.SecondLevelCacheConfig;
 import org.spring.liquibase.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+    // Runs on every authentication: one lookup on the unique username index, roles included,
+    // cached in the query cache and invalidated by any write to users.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.USER_BY_USERNAME_REGION)
+    })
     Optional<User> findByUsername(String username);
+
+    // Returns the username of the deleted row, empty if there was none.
+    @Query(value = "select username from old table (delete from users where id = :id)", nativeQuery = true)
+    Optional<String> deleteByIdReturningUsername(@Param("id") long id);
+
+    // Returns the id of the updated row, empty if no user has the username.
+    @Query(value = "select id from final table (update users set password = :password where username = :username)",
+            nativeQuery = true)
+    Optional<Long> updatePasswordByUsername(@Param("username") String username, @Param("password") String password);
 }
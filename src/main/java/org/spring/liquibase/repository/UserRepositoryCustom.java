@@ -0,0 +1,10 @@
+package org.spring.liquibase.repository;
+
+import org.spring.liquibase.entity.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    // Replaces username and password in one UPDATE; empty if no user has the id.
+    Optional<User> updateById(long id, String username, String password);
+}
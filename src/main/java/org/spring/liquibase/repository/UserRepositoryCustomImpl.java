@@ -0,0 +1,29 @@
+package org.spring.liquibase.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.spring.liquibase.entity.User;
+
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private final EntityManager entityManager;
+
+    // See BookRepositoryCustomImpl: the managed copy is detached so the row written by the UPDATE is returned.
+    @Override
+    public Optional<User> updateById(long id, String username, String password) {
+        entityManager.flush();
+        entityManager.detach(entityManager.getReference(User.class, id));
+
+        @SuppressWarnings("unchecked")
+        List<User> users = entityManager.createNativeQuery("select * from final table " +
+                        "(update users set username = :username, password = :password where id = :id)", User.class)
+                .setParameter("id", id)
+                .setParameter("username", username)
+                .setParameter("password", password)
+                .getResultList();
+        return users.stream().findFirst();
+    }
+}
@@ -0,0 +1,14 @@
+package org.spring.liquibase.service.auditService;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class AuditEntry {
+    Instant occurredAt;
+    String actor;
+    String entityType;
+    long entityId;
+    String action;
+}
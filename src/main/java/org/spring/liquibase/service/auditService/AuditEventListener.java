@@ -0,0 +1,35 @@
+package org.spring.liquibase.service.auditService;
+
+import lombok.RequiredArgsConstructor;
+import org.spring.liquibase.service.bookService.BookChangedEvent;
+import org.spring.liquibase.service.userService.UserChangedEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+
+// Only committed changes are audited; the entry is taken on the request thread, so the actor is still known.
+@Component
+@RequiredArgsConstructor
+public class AuditEventListener {
+    private static final String ANONYMOUS = "anonymous";
+
+    private final AuditLog auditLog;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        auditLog.record(new AuditEntry(Instant.now(), currentActor(), "BOOK", event.getBookId(), event.getType().name()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        auditLog.record(new AuditEntry(Instant.now(), currentActor(), "USER", event.getUserId(), event.getType().name()));
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : ANONYMOUS;
+    }
+}
@@ -0,0 +1,170 @@
+package org.spring.liquibase.service.auditService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.liquibase.config.AuditProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only audit trail written off the request path. Request threads only enqueue an {@link AuditEntry};
+ * the "audit-writer" thread inserts them in JDBC batches, one transaction per batch, as soon as a batch is full
+ * or {@code app.audit.flush-interval} has passed. When the queue is full the entry is dropped or, with the BLOCK
+ * policy, the caller waits up to {@code app.audit.block-timeout} for the writer to make room.
+ */
+@Slf4j
+public class AuditLog implements SmartLifecycle {
+    private static final String INSERT_SQL =
+            "insert into audit_log (occurred_at, actor, entity_type, entity_id, action) values (?, ?, ?, ?, ?)";
+
+    private final AuditProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditQueue queue;
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter overflowCounter;
+    private final Counter writeFailureCounter;
+
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public AuditLog(AuditProperties properties, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new AuditQueue(properties.getQueueCapacity());
+
+        Gauge.builder("audit.queue.depth", queue, AuditQueue::size).register(meterRegistry);
+        this.flushTimer = Timer.builder("audit.flush").publishPercentileHistogram().register(meterRegistry);
+        this.writtenCounter = Counter.builder("audit.written").register(meterRegistry);
+        this.overflowCounter = Counter.builder("audit.dropped").tag("reason", "overflow").register(meterRegistry);
+        this.writeFailureCounter = Counter.builder("audit.dropped").tag("reason", "write_failure")
+                .register(meterRegistry);
+    }
+
+    public boolean record(AuditEntry entry) {
+        if (queue.offer(entry)) {
+            wakeWriterIfBatchReady();
+            return true;
+        }
+
+        if (properties.getOverflowPolicy() == AuditProperties.OverflowPolicy.BLOCK && awaitRoom(entry)) {
+            return true;
+        }
+
+        overflowCounter.increment();
+        return false;
+    }
+
+    private boolean awaitRoom(AuditEntry entry) {
+        long deadline = System.nanoTime() + properties.getBlockTimeout().toNanos();
+        LockSupport.unpark(writer);
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            if (queue.offer(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void wakeWriterIfBatchReady() {
+        if (queue.size() >= properties.getBatchSize()) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    int flush() {
+        int written = 0;
+        List<AuditEntry> batch = new ArrayList<>(properties.getBatchSize());
+        while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+            written += write(batch);
+            batch.clear();
+        }
+        return written;
+    }
+
+    private int write(List<AuditEntry> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(),
+                    (ps, entry) -> {
+                        ps.setTimestamp(1, Timestamp.from(entry.getOccurredAt()));
+                        ps.setString(2, entry.getActor());
+                        ps.setString(3, entry.getEntityType());
+                        ps.setLong(4, entry.getEntityId());
+                        ps.setString(5, entry.getAction());
+                    }));
+            writtenCounter.increment(batch.size());
+            return batch.size();
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} audit entries", batch.size(), e);
+            writeFailureCounter.increment(batch.size());
+            return 0;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void runWriter() {
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        while (running) {
+            if (queue.size() < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flush();
+        }
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::runWriter, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Whatever is still queued is written once the writer has exited, before the data source is closed.
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server, so requests still being served can record their changes.
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
@@ -0,0 +1,47 @@
+package org.spring.liquibase.service.auditService;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded multi-producer queue without locks: a slot is reserved with a CAS on the size counter before the
+ * entry is linked into the queue, so producers never wait on each other or on the writer draining it.
+ */
+class AuditQueue {
+    private final ConcurrentLinkedQueue<AuditEntry> entries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+
+    AuditQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    boolean offer(AuditEntry entry) {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+
+        entries.offer(entry);
+        return true;
+    }
+
+    int drainTo(List<AuditEntry> batch, int maxEntries) {
+        int drained = 0;
+        AuditEntry entry;
+        while (drained < maxEntries && (entry = entries.poll()) != null) {
+            batch.add(entry);
+            drained++;
+        }
+        size.addAndGet(-drained);
+        return drained;
+    }
+
+    int size() {
+        return size.get();
+    }
+}
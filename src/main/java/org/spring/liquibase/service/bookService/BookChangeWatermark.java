@@ -0,0 +1,85 @@
+package org.spring.liquibase.service.bookService;
+
+import lombok.RequiredArgsConstructor;
+import org.spring.liquibase.repository.BookRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * books_change_seq is drawn when a row is written, not when its transaction commits, so a slow writer can commit
+ * a lower value after a higher one has already been handed to a GET /books/changes client. Every book write
+ * registers a lower bound of the value it will draw as it starts and keeps it until its transaction completes; the
+ * change feed only serves values below the oldest registered one, so it waits for a late commit instead of
+ * skipping it.
+ * <p>
+ * The bound is the highest value known to be drawn already, kept in memory and advanced by the feed's own read of
+ * the sequence, so a write adds no round trip. It may trail the sequence, which only holds the feed back further
+ * while that write is in flight.
+ * <p>
+ * Only writes made through this application instance are tracked.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookChangeWatermark {
+    private final BookRepository bookRepository;
+
+    private static final long UNSEEDED = Long.MIN_VALUE;
+
+    private final Map<Object, Long> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong drawnUpTo = new AtomicLong(UNSEEDED);
+
+    // Registered once per transaction and released when it completes; without a transaction the write
+    // commits on its own, so it is released as soon as it returns.
+    public <T> T track(Supplier<T> write) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Object writer = register();
+            try {
+                return write.get();
+            } finally {
+                inFlight.remove(writer);
+            }
+        }
+
+        if (!TransactionSynchronizationManager.hasResource(this)) {
+            Object writer = register();
+            TransactionSynchronizationManager.bindResource(this, writer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BookChangeWatermark.this);
+                    inFlight.remove(writer);
+                }
+            });
+        }
+        return write.get();
+    }
+
+    // Highest change_seq that no write in flight can still commit at or below. The sequence is read before the
+    // in-flight set: a writer missing from the set either has not drawn a value yet, and will draw one above
+    // the sequence read here, or has already completed.
+    public long safeChangeSeq() {
+        long next = bookRepository.nextChangeSeq();
+        drawnUpTo.accumulateAndGet(next - 1, Math::max);
+        long oldest = inFlight.values().stream()
+                .mapToLong(Long::longValue)
+                .min()
+                .orElse(next);
+        return Math.min(next, oldest) - 1;
+    }
+
+    // Every value drawn from now on is above drawnUpTo; the sequence is only read to seed it once.
+    private Object register() {
+        if (drawnUpTo.get() == UNSEEDED) {
+            drawnUpTo.compareAndSet(UNSEEDED, bookRepository.nextChangeSeq() - 1);
+        }
+        Object writer = new Object();
+        inFlight.put(writer, drawnUpTo.get() + 1);
+        return writer;
+    }
+}
@@ -0,0 +1,29 @@
+package org.spring.liquibase.service.bookService;
+
+import lombok.Value;
+
+// Published by BookServiceImpl for every book it writes; title is null for deletions.
+@Value
+public class BookChangedEvent {
+    long bookId;
+    ChangeType type;
+    String title;
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static BookChangedEvent created(long bookId, String title) {
+        return new BookChangedEvent(bookId, ChangeType.CREATED, title);
+    }
+
+    public static BookChangedEvent updated(long bookId, String title) {
+        return new BookChangedEvent(bookId, ChangeType.UPDATED, title);
+    }
+
+    public static BookChangedEvent deleted(long bookId) {
+        return new BookChangedEvent(bookId, ChangeType.DELETED, null);
+    }
+}
@@ -0,0 +1,42 @@
+package org.spring.liquibase.service.bookService;
+
+import lombok.Value;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.exeption.InvalidCursorException;
+import org.spring.liquibase.repository.BookSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for the price-sorted keyset pagination: (price, id) of the last book on a page.
+ */
+@Value
+public class BookCursor {
+    Integer price;
+    long id;
+
+    public static BookCursor of(Book book) {
+        return new BookCursor(book.getPrice(), book.getId());
+    }
+
+    public static BookCursor of(BookSummary book) {
+        return new BookCursor(book.getPrice(), book.getId());
+    }
+
+    public String encode() {
+        String raw = price + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new BookCursor(Integer.valueOf(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Некорректный курсор: " + cursor, e);
+        }
+    }
+}
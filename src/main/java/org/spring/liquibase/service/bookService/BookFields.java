@@ -0,0 +1,47 @@
+package org.spring.liquibase.service.bookService;
+
+import lombok.Value;
+import org.spring.liquibase.exeption.InvalidFieldsException;
+import org.spring.liquibase.repository.BookSummary;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields requested with ?fields=id,title on the listing endpoints, in the order they were given.
+ */
+@Value
+public class BookFields {
+    private static final List<String> AVAILABLE = List.of("id", "title", "price");
+
+    List<String> names;
+
+    public static BookFields parse(String fields) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!AVAILABLE.contains(name)) {
+                throw new InvalidFieldsException("Неизвестное поле: \"" + name + "\". Доступны: "
+                        + String.join(", ", AVAILABLE) + ".");
+            }
+            names.add(name);
+        }
+        return new BookFields(List.copyOf(names));
+    }
+
+    public Map<String, Object> select(BookSummary book) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String name : names) {
+            switch (name) {
+                case "id" -> values.put(name, book.getId());
+                case "title" -> values.put(name, book.getTitle());
+                case "price" -> values.put(name, book.getPrice());
+                default -> throw new IllegalStateException(name);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,84 @@
+package org.spring.liquibase.service.bookService;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.spring.liquibase.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized catalog listings (/books/getAll, /sortByMin, /sortByMax), kept as the bytes that go on the wire.
+ * Concurrent misses on one key share a single load. Every committed book write moves to a new generation,
+ * so a listing loaded from pre-write data is never served after the write, even if its load finishes later.
+ * Entries of older generations are unreachable and left to the cache's size bound and TTL; clearing on every
+ * event would mean clearing once per row of a bulk chunk.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookResponseCache {
+    // Below this the gzip framing costs more than it saves (Tomcat's compression uses the same threshold).
+    private static final int MIN_GZIP_SIZE = 2048;
+
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachedResponse get(String name, Supplier<?> body) {
+        String key = generation.get() + ":" + name;
+        try {
+            return cache().get(key, () -> serialize(body.get()));
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CacheConfig.BOOK_RESPONSES_CACHE);
+    }
+
+    private CachedResponse serialize(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new CachedResponse(json, json.length >= MIN_GZIP_SIZE ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Value
+    public static class CachedResponse {
+        byte[] json;
+
+        // null when the body is too small to be worth compressing
+        byte[] gzip;
+    }
+}
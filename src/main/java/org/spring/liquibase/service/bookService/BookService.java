@@ -1,23 +1,58 @@
 package org.spring.liquibase.service.bookService;
 
+import org.spring.liquibase.dto.BookBulkDelete;
+import org.spring.liquibase.dto.BookBulkUpdate;
+import org.spring.liquibase.dto.BookChanges;
+import org.spring.liquibase.dto.BookPage;
+import org.spring.liquibase.dto.BookSearchResult;
+import org.spring.liquibase.dto.BookStats;
+import org.spring.liquibase.dto.BookSummaryPage;
+import org.spring.liquibase.dto.BulkResult;
 import org.spring.liquibase.entity.Book;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface BookService {
     Book saveBook(Book book);
 
+    List<Book> saveBooks(List<Book> books);
+
     Book getBookById(long bookId);
 
     void deleteBook(long bookId);
 
-    Book updateBook(long id, Book book);
+    // expectedVersion is the version the client last read (If-Match), or null to write unconditionally.
+    Book updateBook(long id, Book book, Long expectedVersion);
+
+    Book patchBook(long id, Book book, Long expectedVersion);
+
+    BulkResult updateBooks(BookBulkUpdate request);
 
-    Book patchBook(long id, Book book);
+    BulkResult deleteBooks(BookBulkDelete request);
 
     List<Book> getAllBooks();
 
-    List<Book> getBooksSortByMinPrice();
+    List<Map<String, Object>> getAllBookSummaries(String fields);
+
+    void exportAllBooks(Consumer<Book> consumer);
+
+    long getBookVersion(long bookId);
+
+    String getCatalogVersion();
+
+    BookChanges getChangesSince(String token, int limit);
+
+    BookSearchResult searchBooks(String query, int limit);
+
+    BookStats getBookStats(int buckets);
+
+    BookPage getBooksSortByMinPrice(String cursor, int size);
+
+    BookPage getBooksSortByMaxPrice(String cursor, int size);
+
+    BookSummaryPage getBookSummariesSortByMinPrice(String cursor, int size, String fields);
 
-    List<Book> getBooksSortByMaxPrice();
+    BookSummaryPage getBookSummariesSortByMaxPrice(String cursor, int size, String fields);
 }
@@ -1,65 +1,257 @@
 package org.spring.liquibase.service.bookService;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.spring.liquibase.config.CacheConfig;
+import org.spring.liquibase.dto.BookBulkDelete;
+import org.spring.liquibase.dto.BookBulkUpdate;
+import org.spring.liquibase.dto.BookChange;
+import org.spring.liquibase.dto.BookChanges;
+import org.spring.liquibase.dto.BookPage;
+import org.spring.liquibase.dto.BookSearchResult;
+import org.spring.liquibase.dto.BookStats;
+import org.spring.liquibase.dto.BookSummaryPage;
+import org.spring.liquibase.dto.BulkResult;
+import org.spring.liquibase.dto.PriceBucket;
 import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.entity.BookTombstone;
 import org.spring.liquibase.exeption.BookNotFoundException;
+import org.spring.liquibase.exeption.InvalidBulkRequestException;
+import org.spring.liquibase.exeption.InvalidCursorException;
 import org.spring.liquibase.repository.BookRepository;
+import org.spring.liquibase.repository.BookSummary;
+import org.spring.liquibase.repository.BookTombstoneRepository;
+import org.spring.liquibase.repository.CatalogFingerprint;
+import org.spring.liquibase.repository.PriceBucketCount;
+import org.spring.liquibase.repository.PriceSummary;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Timed("book.service")
 public class BookServiceImpl implements BookService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int BULK_CHUNK_SIZE = 500;
+    private static final int MAX_HISTOGRAM_BUCKETS = 100;
+
     private final BookRepository bookRepository;
+    private final BookTombstoneRepository bookTombstoneRepository;
+    private final EntityManager entityManager;
+    private final BookTitleIndex bookTitleIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookChangeWatermark bookChangeWatermark;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public Book saveBook(Book book) {
-        return bookRepository.save(book);
+        boolean created = book.getId() == 0;
+        Book savedBook = bookChangeWatermark.track(() -> bookRepository.save(book));
+        eventPublisher.publishEvent(created
+                ? BookChangedEvent.created(savedBook.getId(), savedBook.getTitle())
+                : BookChangedEvent.updated(savedBook.getId(), savedBook.getTitle()));
+
+        return savedBook;
     }
 
+    // Inserts are JDBC-batched (hibernate.jdbc.batch_size); the persistence context is flushed and
+    // cleared every chunk so a large upload does not keep every entity managed until commit.
     @Override
-    public Book patchBook(long id, Book book) {
-        Book oldBook = bookRepository.findById(id)
-                .orElseThrow(() -> new BookNotFoundException("Книга с id " + id + " не найдена."));
+    @Transactional
+    public List<Book> saveBooks(List<Book> books) {
+        for (int from = 0; from < books.size(); from += BULK_CHUNK_SIZE) {
+            List<Book> chunk = books.subList(from, Math.min(from + BULK_CHUNK_SIZE, books.size()));
+            chunk.forEach(book -> book.setId(0));
 
-        if (book.getTitle() != null) {
-            oldBook.setTitle(book.getTitle());
-        }
+            bookChangeWatermark.track(() -> bookRepository.saveAll(chunk));
+            entityManager.flush();
+            entityManager.clear();
 
-        if (book.getPrice() != null){
-            oldBook.setPrice(book.getPrice());
+            chunk.forEach(book -> eventPublisher.publishEvent(BookChangedEvent.created(book.getId(), book.getTitle())));
         }
 
-        return bookRepository.save(oldBook);
+        return books;
+    }
+
+    // Writes go straight to UPDATE/DELETE ... WHERE id = ?; a missing book shows up as an empty result or zero rows.
+    @Override
+    @Transactional
+    public Book patchBook(long id, Book book, Long expectedVersion) {
+        Book patchedBook = bookChangeWatermark
+                .track(() -> bookRepository.patchById(id, book.getTitle(), book.getPrice(), expectedVersion))
+                .orElseThrow(() -> notUpdated(id, expectedVersion));
+        eventPublisher.publishEvent(BookChangedEvent.updated(id, patchedBook.getTitle()));
+
+        return patchedBook;
     }
 
+    // Cached until the next committed write to the book (see evictBook).
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
     public Book getBookById(long bookId) {
         return bookRepository.findById(bookId)
                 .orElseThrow(() -> new BookNotFoundException("Книга с id " + bookId + " не найдена."));
     }
 
+    // Evicting only once the write has committed means a reader can no longer reload the old row and cache it
+    // again before the commit. A read that started before the commit and stores its copy after this eviction
+    // is still possible; the short TTL of the books cache bounds how long that copy is served.
+    @TransactionalEventListener(fallbackExecution = true)
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#event.bookId")
+    public void evictBook(BookChangedEvent event) {
+    }
+
     @Override
+    @Transactional
     public void deleteBook(long bookId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BookNotFoundException("Книга с id " + bookId + " не найдена."));
+        if (bookChangeWatermark.track(() -> bookRepository.deleteBookById(bookId)) == 0) {
+            throw new BookNotFoundException("Книга с id " + bookId + " не найдена.");
+        }
+        eventPublisher.publishEvent(BookChangedEvent.deleted(bookId));
+    }
+
+    @Override
+    @Transactional
+    public Book updateBook(long id, Book book, Long expectedVersion) {
+        Book updatedBook = bookChangeWatermark
+                .track(() -> bookRepository.updateById(id, book.getTitle(), book.getPrice(), expectedVersion))
+                .orElseThrow(() -> notUpdated(id, expectedVersion));
+        eventPublisher.publishEvent(BookChangedEvent.updated(id, updatedBook.getTitle()));
+
+        return updatedBook;
+    }
 
-        bookRepository.delete(book);
+    // Zero rows under a version check means a concurrent write got there first, unless the book is gone entirely.
+    private RuntimeException notUpdated(long id, Long expectedVersion) {
+        if (expectedVersion != null && bookRepository.findVersionById(id).isPresent()) {
+            return new ObjectOptimisticLockingFailureException(Book.class, id);
+        }
+        return new BookNotFoundException("Книга с id " + id + " не найдена.");
     }
 
+    // Not transactional on purpose: every chunk of BULK_CHUNK_SIZE rows is its own transaction, so row locks are
+    // held for a single chunk and a failure leaves the earlier chunks applied. The chunk's events are published
+    // inside it, so the listeners handle them once per chunk commit rather than once per row.
     @Override
-    public Book updateBook(long id, Book book) {
-        Book oldBook = bookRepository.findById(id)
-                .orElseThrow(() -> new BookNotFoundException("Книга с id " + id + " не найдена."));
-        oldBook.setTitle(book.getTitle());
-        oldBook.setPrice(book.getPrice());
+    public BulkResult updateBooks(BookBulkUpdate request) {
+        if ((request.getPrice() == null) == (request.getPercent() == null)) {
+            throw new InvalidBulkRequestException("Укажите либо price, либо percent.");
+        }
+        if (request.getPrice() != null && request.getPrice() < 0) {
+            throw new InvalidBulkRequestException("Цена не может быть отрицательной.");
+        }
+        if (request.getPercent() != null && request.getPercent() <= -100) {
+            throw new InvalidBulkRequestException("Изменение цены должно быть больше -100%.");
+        }
+
+        long affected = 0;
+        if (selectsByIds(request.getIds(), request.getMinPrice(), request.getMaxPrice())) {
+            for (List<Long> chunk : chunks(request.getIds())) {
+                affected += inTransaction(() -> publishUpdated(bookChangeWatermark.track(() ->
+                        bookRepository.updatePricesByIds(chunk, request.getPrice(), request.getPercent())))).size();
+            }
+        } else {
+            long afterId = Long.MIN_VALUE;
+            List<Book> chunk;
+            do {
+                long after = afterId;
+                chunk = inTransaction(() -> publishUpdated(bookChangeWatermark.track(() ->
+                        bookRepository.updatePricesInRange(minPrice(request.getMinPrice()),
+                                maxPrice(request.getMaxPrice()), after, BULK_CHUNK_SIZE,
+                                request.getPrice(), request.getPercent()))));
+                afterId = chunk.stream().mapToLong(Book::getId).max().orElse(afterId);
+                affected += chunk.size();
+            } while (chunk.size() == BULK_CHUNK_SIZE);
+        }
 
-        return bookRepository.save(oldBook);
+        return new BulkResult(affected);
     }
 
     @Override
+    public BulkResult deleteBooks(BookBulkDelete request) {
+        long affected = 0;
+        if (selectsByIds(request.getIds(), request.getMinPrice(), request.getMaxPrice())) {
+            for (List<Long> chunk : chunks(request.getIds())) {
+                affected += inTransaction(() -> publishDeleted(bookChangeWatermark.track(() ->
+                        bookRepository.deleteBooksByIds(chunk)))).size();
+            }
+        } else {
+            List<Long> chunk;
+            do {
+                chunk = inTransaction(() -> publishDeleted(bookChangeWatermark.track(() ->
+                        bookRepository.deleteBooksInRange(minPrice(request.getMinPrice()),
+                                maxPrice(request.getMaxPrice()), BULK_CHUNK_SIZE))));
+                affected += chunk.size();
+            } while (chunk.size() == BULK_CHUNK_SIZE);
+        }
+
+        return new BulkResult(affected);
+    }
+
+    private static boolean selectsByIds(List<Long> ids, Integer minPrice, Integer maxPrice) {
+        boolean byRange = minPrice != null || maxPrice != null;
+        if ((ids != null) == byRange) {
+            throw new InvalidBulkRequestException("Укажите либо ids, либо minPrice/maxPrice.");
+        }
+        if (byRange && minPrice(minPrice) > maxPrice(maxPrice)) {
+            throw new InvalidBulkRequestException("minPrice не может быть больше maxPrice.");
+        }
+
+        return ids != null;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += BULK_CHUNK_SIZE) {
+            chunks.add(distinctIds.subList(from, Math.min(from + BULK_CHUNK_SIZE, distinctIds.size())));
+        }
+        return chunks;
+    }
+
+    private static int minPrice(Integer minPrice) {
+        return minPrice != null ? minPrice : Integer.MIN_VALUE;
+    }
+
+    private static int maxPrice(Integer maxPrice) {
+        return maxPrice != null ? maxPrice : Integer.MAX_VALUE;
+    }
+
+    private <T> T inTransaction(Supplier<T> chunk) {
+        return transactionTemplate.execute(status -> chunk.get());
+    }
+
+    private List<Book> publishUpdated(List<Book> books) {
+        books.forEach(book -> eventPublisher.publishEvent(BookChangedEvent.updated(book.getId(), book.getTitle())));
+        return books;
+    }
+
+    private List<Long> publishDeleted(List<Long> bookIds) {
+        bookIds.forEach(bookId -> eventPublisher.publishEvent(BookChangedEvent.deleted(bookId)));
+        return bookIds;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Book> getAllBooks() {
         List<Book> books = bookRepository.findAll();
 
@@ -70,35 +262,238 @@ public class BookServiceImpl implements BookService {
         return books;
     }
 
-
-
     @Override
-    public List<Book> getBooksSortByMinPrice() {
-        List<Book> books = bookRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllBookSummaries(String fields) {
+        BookFields selection = BookFields.parse(fields);
+        List<BookSummary> books = bookRepository.findAllSummaries();
 
         if (books.isEmpty()) {
             throw new BookNotFoundException("Книги в базе данных отсутствуют.");
         }
 
-        books = books.stream()
-                .sorted(Comparator.comparing(Book::getPrice))
+        return books.stream().map(selection::select).toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getBookVersion(long bookId) {
+        return bookRepository.findVersionById(bookId)
+                .orElseThrow(() -> new BookNotFoundException("Книга с id " + bookId + " не найдена."));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getCatalogVersion() {
+        CatalogFingerprint fingerprint = bookRepository.fingerprintCatalog();
+
+        return fingerprint.getBookCount() + "-" + fingerprint.getMaxId() + "-" + fingerprint.getVersionSum();
+    }
+
+    // Inserts, updates and tombstones share books_change_seq, so both keysets are merged into one ordered page
+    // and the token is simply the last sequence value handed out. Nothing above the watermark is served, so a
+    // write still in flight with a lower value than a committed one holds the page back until it commits.
+    @Override
+    @Transactional(readOnly = true)
+    public BookChanges getChangesSince(String token, int limit) {
+        long since = parseChangeToken(token);
+        int pageSize = pageSize(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        long upTo = bookChangeWatermark.safeChangeSeq();
+
+        List<Book> books = bookRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(
+                since, upTo, fetch);
+        List<BookTombstone> tombstones = bookTombstoneRepository
+                .findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(since, upTo, fetch);
+
+        List<BookChange> changes = new ArrayList<>(pageSize);
+        long last = since;
+        int b = 0;
+        int t = 0;
+        while (changes.size() < pageSize && (b < books.size() || t < tombstones.size())) {
+            if (t == tombstones.size()
+                    || (b < books.size() && books.get(b).getChangeSeq() < tombstones.get(t).getChangeSeq())) {
+                Book book = books.get(b++);
+                changes.add(new BookChange(book.getId(), false, book));
+                last = book.getChangeSeq();
+            } else {
+                BookTombstone tombstone = tombstones.get(t++);
+                changes.add(new BookChange(tombstone.getBookId(), true, null));
+                last = tombstone.getChangeSeq();
+            }
+        }
+
+        return new BookChanges(changes, String.valueOf(last), b < books.size() || t < tombstones.size());
+    }
+
+    private static long parseChangeToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Некорректный токен изменений: " + token, e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookSearchResult searchBooks(String query, int limit) {
+        BookTitleIndex.Hits hits = bookTitleIndex.search(query, pageSize(limit));
+        List<Long> rankedIds = hits.getBookIds();
+        if (rankedIds.isEmpty()) {
+            return new BookSearchResult(List.of(), hits.isTruncated());
+        }
+
+        Map<Long, Book> booksById = bookRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        List<Book> books = rankedIds.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
                 .toList();
+        return new BookSearchResult(books, hits.isTruncated());
+    }
 
-        return books;
+    // Two aggregate queries regardless of catalog size; the result is cached until the next book write.
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.BOOK_STATS_CACHE, key = "#buckets")
+    public BookStats getBookStats(int buckets) {
+        PriceSummary summary = bookRepository.summarizePrices();
+        if (summary.getBookCount() == 0) {
+            return new BookStats(0, null, null, null, List.of());
+        }
+
+        int min = summary.getMinPrice();
+        int max = summary.getMaxPrice();
+        int bucketCount = Math.max(1, Math.min(buckets, MAX_HISTOGRAM_BUCKETS));
+        int width = (max - min + bucketCount) / bucketCount;
+
+        long[] counts = new long[(max - min) / width + 1];
+        for (PriceBucketCount bucket : bookRepository.countByPriceBucket(min, width)) {
+            counts[bucket.getBucket()] += bucket.getBookCount();
+        }
+
+        List<PriceBucket> histogram = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            histogram.add(new PriceBucket(min + i * width, min + (i + 1) * width, counts[i]));
+        }
+
+        return new BookStats(summary.getBookCount(), min, max, summary.getAveragePrice(), histogram);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @CacheEvict(cacheNames = CacheConfig.BOOK_STATS_CACHE, allEntries = true)
+    public void evictBookStats(BookChangedEvent event) {
     }
 
+    // Each book is detached once handed to the consumer, so the persistence context never grows with the table.
     @Override
-    public List<Book> getBooksSortByMaxPrice() {
-        List<Book> books = bookRepository.findAll();
+    @Transactional(readOnly = true)
+    public void exportAllBooks(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
+        }
+    }
 
-        if (books.isEmpty()) {
+    @Override
+    @Transactional(readOnly = true)
+    public BookPage getBooksSortByMinPrice(String cursor, int size) {
+        Limit limit = Limit.of(pageSize(size) + 1);
+
+        List<Book> books;
+        if (cursor == null) {
+            books = bookRepository.findAllByOrderByPriceAscIdAsc(limit);
+        } else {
+            BookCursor after = BookCursor.decode(cursor);
+            books = bookRepository.findPageAfterByPriceAsc(after.getPrice(), after.getId(), limit);
+        }
+
+        return toPage(books, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookPage getBooksSortByMaxPrice(String cursor, int size) {
+        Limit limit = Limit.of(pageSize(size) + 1);
+
+        List<Book> books;
+        if (cursor == null) {
+            books = bookRepository.findAllByOrderByPriceDescIdDesc(limit);
+        } else {
+            BookCursor after = BookCursor.decode(cursor);
+            books = bookRepository.findPageAfterByPriceDesc(after.getPrice(), after.getId(), limit);
+        }
+
+        return toPage(books, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookSummaryPage getBookSummariesSortByMinPrice(String cursor, int size, String fields) {
+        BookFields selection = BookFields.parse(fields);
+        Limit limit = Limit.of(pageSize(size) + 1);
+
+        List<BookSummary> books;
+        if (cursor == null) {
+            books = bookRepository.findSummariesOrderByPriceAsc(limit);
+        } else {
+            BookCursor after = BookCursor.decode(cursor);
+            books = bookRepository.findSummaryPageAfterByPriceAsc(after.getPrice(), after.getId(), limit);
+        }
+
+        return toSummaryPage(books, cursor, size, selection);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookSummaryPage getBookSummariesSortByMaxPrice(String cursor, int size, String fields) {
+        BookFields selection = BookFields.parse(fields);
+        Limit limit = Limit.of(pageSize(size) + 1);
+
+        List<BookSummary> books;
+        if (cursor == null) {
+            books = bookRepository.findSummariesOrderByPriceDesc(limit);
+        } else {
+            BookCursor after = BookCursor.decode(cursor);
+            books = bookRepository.findSummaryPageAfterByPriceDesc(after.getPrice(), after.getId(), limit);
+        }
+
+        return toSummaryPage(books, cursor, size, selection);
+    }
+
+    private int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    // One extra row is fetched to know whether a next page exists without a count query.
+    private BookPage toPage(List<Book> books, String cursor, int size) {
+        if (books.isEmpty() && cursor == null) {
             throw new BookNotFoundException("Книги в базе данных отсутствуют.");
         }
 
-        books = books.stream()
-                .sorted(Comparator.comparing(Book::getPrice).reversed())
-                .toList();
+        int pageSize = pageSize(size);
+        if (books.size() <= pageSize) {
+            return new BookPage(books, null);
+        }
 
-        return books;
+        List<Book> page = books.subList(0, pageSize);
+        return new BookPage(page, BookCursor.of(page.get(pageSize - 1)).encode());
+    }
+
+    private BookSummaryPage toSummaryPage(List<BookSummary> books, String cursor, int size, BookFields fields) {
+        if (books.isEmpty() && cursor == null) {
+            throw new BookNotFoundException("Книги в базе данных отсутствуют.");
+        }
+
+        int pageSize = pageSize(size);
+        List<BookSummary> page = books.size() <= pageSize ? books : books.subList(0, pageSize);
+        String nextCursor = books.size() <= pageSize ? null : BookCursor.of(page.get(pageSize - 1)).encode();
+        return new BookSummaryPage(page.stream().map(fields::select).toList(), nextCursor);
     }
 }
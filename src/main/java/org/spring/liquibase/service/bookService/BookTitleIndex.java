@@ -0,0 +1,221 @@
+package org.spring.liquibase.service.bookService;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.repository.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index over book titles. Built once from the table at startup and kept current by the
+ * {@link BookChangedEvent}s BookServiceImpl publishes after each committed write.
+ * <p>
+ * Every query term must match a title token, either exactly or as a prefix; exact matches rank above prefix
+ * matches, and among equal scores shorter titles come first. A prefix is expanded to at most
+ * {@value #MAX_PREFIX_EXPANSIONS} tokens; a search that hits the bound is reported as truncated.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookTitleIndex {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final double EXACT_MATCH = 1.0;
+    private static final double PREFIX_MATCH = 0.5;
+    // bounds the work a one-letter prefix can cause on a large catalog
+    private static final int MAX_PREFIX_EXPANSIONS = 512;
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Postings postings = new Postings();
+
+    // Non-null while rebuild() reads its snapshot: the changes applied meanwhile, replayed over the new postings
+    // so a title read from the snapshot never replaces a newer one.
+    private List<BookChangedEvent> changesDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Postings rebuilt = new Postings();
+        try {
+            try (Stream<Book> books = bookRepository.streamAll()) {
+                books.forEach(book -> {
+                    rebuilt.link(book.getId(), tokenize(book.getTitle()).toArray(String[]::new));
+                    entityManager.detach(book);
+                });
+            }
+
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild.forEach(change -> apply(rebuilt, change));
+                postings = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            changesDuringRebuild = null;
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} book titles in {} ms", size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+            apply(postings, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Hits search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new Hits(List.of(), false);
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            boolean truncated = false;
+            for (String term : terms) {
+                Map<Long, Double> termScores = new HashMap<>();
+                truncated |= match(term, termScores);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((bookId, score) -> score + termScores.get(bookId));
+                }
+
+                if (scores.isEmpty()) {
+                    return new Hits(List.of(), truncated);
+                }
+            }
+
+            Map<Long, String[]> tokensByBook = postings.tokensByBook;
+            Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparingInt(entry -> tokensByBook.get(entry.getKey()).length)
+                    .thenComparing(Map.Entry::getKey);
+            List<Long> bookIds = scores.entrySet().stream()
+                    .sorted(ranking)
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            return new Hits(bookIds, truncated);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return postings.tokensByBook.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Fills scores and returns true when the term had more completions than MAX_PREFIX_EXPANSIONS.
+    private boolean match(String term, Map<Long, Double> scores) {
+        int expansions = 0;
+        for (Map.Entry<String, Set<Long>> posting : postings.byToken.tailMap(term, true).entrySet()) {
+            if (!posting.getKey().startsWith(term)) {
+                return false;
+            }
+            if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                log.debug("Prefix '{}' expands past {} tokens, search results are truncated", term,
+                        MAX_PREFIX_EXPANSIONS);
+                return true;
+            }
+
+            double score = posting.getKey().length() == term.length() ? EXACT_MATCH : PREFIX_MATCH;
+            for (Long bookId : posting.getValue()) {
+                scores.merge(bookId, score, Math::max);
+            }
+        }
+        return false;
+    }
+
+    private static void apply(Postings postings, BookChangedEvent change) {
+        postings.unlink(change.getBookId());
+        if (change.getType() != BookChangedEvent.ChangeType.DELETED) {
+            postings.link(change.getBookId(), tokenize(change.getTitle()).toArray(String[]::new));
+        }
+    }
+
+    // Ranked ids; truncated when a prefix was cut off at MAX_PREFIX_EXPANSIONS, so matches may be missing.
+    @Value
+    public static class Hits {
+        List<Long> bookIds;
+        boolean truncated;
+    }
+
+    private static class Postings {
+        private final NavigableMap<String, Set<Long>> byToken = new TreeMap<>();
+        private final Map<Long, String[]> tokensByBook = new HashMap<>();
+
+        void link(long bookId, String[] tokens) {
+            unlink(bookId);
+            if (tokens.length > 0) {
+                tokensByBook.put(bookId, tokens);
+                for (String token : tokens) {
+                    byToken.computeIfAbsent(token, t -> new HashSet<>()).add(bookId);
+                }
+            }
+        }
+
+        void unlink(long bookId) {
+            String[] previous = tokensByBook.remove(bookId);
+            if (previous == null) {
+                return;
+            }
+
+            for (String token : previous) {
+                Set<Long> bookIds = byToken.get(token);
+                bookIds.remove(bookId);
+                if (bookIds.isEmpty()) {
+                    byToken.remove(token);
+                }
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toList();
+    }
+}
@@ -0,0 +1,17 @@
+package org.spring.liquibase.service.userService;
+
+import lombok.Value;
+
+// Published by UserServiceImpl for every user it writes.
+@Value
+public class UserChangedEvent {
+    long userId;
+    ChangeType type;
+    String username;
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -1,52 +1,81 @@
 package org.spring.liquibase.service.userService;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.spring.liquibase.config.CacheConfig;
 import org.spring.liquibase.entity.User;
 import org.spring.liquibase.exeption.UserNotFoundException;
 import org.spring.liquibase.repository.UserRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
+@Timed("user.service")
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public User saveUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(
+                new UserChangedEvent(savedUser.getId(), UserChangedEvent.ChangeType.CREATED, savedUser.getUsername()));
+
+        return savedUser;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User getUserById(long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User with id " + userId + " not found"));
     }
 
     @Override
+    @Transactional
     public void deleteUser(long userId) {
-        User user = userRepository.findById(userId)
+        String username = userRepository.deleteByIdReturningUsername(userId)
                 .orElseThrow(() -> new UserNotFoundException("User with id " + userId + " not found"));
-        userRepository.delete(user);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, UserChangedEvent.ChangeType.DELETED, username));
     }
 
     @Override
+    @Transactional
     public User updateUser(long userId, User user) {
-        User userToUpdate = userRepository.findById(userId)
+        User updatedUser = userRepository.updateById(userId, user.getUsername(), passwordEncoder.encode(user.getPassword()))
                 .orElseThrow(() -> new UserNotFoundException("User with id " + userId + " not found"));
+        eventPublisher.publishEvent(
+                new UserChangedEvent(userId, UserChangedEvent.ChangeType.UPDATED, updatedUser.getUsername()));
 
-        userToUpdate.setUsername(user.getUsername());
-        userToUpdate.setPassword(user.getPassword());
+        return updatedUser;
+    }
 
-        return userRepository.save(user);
+    // After the commit, like BookServiceImpl.evictBook: evicting earlier lets a login that still reads the old row
+    // cache it again, and the deleted user or old password would keep working until the entry expires.
+    // The previous username of an update is not read back, so an update drops every cached principal.
+    @TransactionalEventListener(fallbackExecution = true)
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true,
+            condition = "#event.type == T(org.spring.liquibase.service.userService.UserChangedEvent.ChangeType).UPDATED")
+    public void evictUser(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.ChangeType.DELETED) {
+            userCache.removeUserFromCache(event.getUsername());
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException("User with username " + username + " not found"));
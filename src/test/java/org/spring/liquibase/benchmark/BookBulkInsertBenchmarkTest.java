@@ -0,0 +1,76 @@
+package org.spring.liquibase.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.repository.BookRepository;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rows/sec of POST /books/add one by one versus POST /books/bulk; run with mvn -Pbenchmark test
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk_insert_benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class BookBulkInsertBenchmarkTest {
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    BookServiceImpl bookService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void compareOneByOneAndBulkInsert() {
+        // warm up both paths so JIT and statement caches do not skew the first measurement
+        List<Book> warmUp = books(2_000);
+        warmUp.forEach(bookService::saveBook);
+        bookService.saveBooks(books(2_000));
+        bookRepository.deleteAllInBatch();
+
+        long start = System.nanoTime();
+        books(ROWS).forEach(bookService::saveBook);
+        double oneByOne = rowsPerSecond(System.nanoTime() - start);
+
+        bookRepository.deleteAllInBatch();
+
+        start = System.nanoTime();
+        bookService.saveBooks(books(ROWS));
+        double bulk = rowsPerSecond(System.nanoTime() - start);
+
+        log.info("Inserted {} books: one-by-one {} rows/s, bulk {} rows/s ({}x)",
+                ROWS, Math.round(oneByOne), Math.round(bulk), String.format("%.1f", bulk / oneByOne));
+        assertThat(bookRepository.count()).isEqualTo(ROWS);
+    }
+
+    private static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setPrice(100 + i % 1000);
+            books.add(book);
+        }
+        return books;
+    }
+
+    private static double rowsPerSecond(long nanos) {
+        return ROWS / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,146 @@
+package org.spring.liquibase.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Closed-loop HTTP load generator: each client thread sends a request, waits for the response and
+ * immediately sends the next one, picking endpoints at random by weight. Latencies observed during
+ * the warm-up are discarded.
+ */
+@Slf4j
+public class HttpLoadDriver {
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+    private final String authorization;
+    private final List<LoadEndpoint> endpoints;
+    private final int totalWeight;
+
+    public HttpLoadDriver(String baseUrl, String username, String password, List<LoadEndpoint> endpoints) {
+        this.baseUrl = baseUrl;
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.endpoints = List.copyOf(endpoints);
+        this.totalWeight = endpoints.stream().mapToInt(LoadEndpoint::getWeight).sum();
+    }
+
+    public LoadReport run(int clients, Duration warmUp, Duration duration) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmUp.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<Map<String, Samples>>> results = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            results.add(executor.submit(() -> drive(measureFrom, stopAt)));
+        }
+        executor.shutdown();
+
+        Map<String, Samples> merged = new TreeMap<>();
+        for (Future<Map<String, Samples>> result : results) {
+            try {
+                result.get().forEach((name, samples) -> merged.computeIfAbsent(name, n -> new Samples()).addAll(samples));
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load client failed", e.getCause());
+            }
+        }
+
+        Map<String, LoadReport.EndpointReport> reports = new LinkedHashMap<>();
+        merged.forEach((name, samples) -> reports.put(name, samples.report()));
+        return new LoadReport(reports, duration.toNanos() / 1_000_000_000.0);
+    }
+
+    private Map<String, Samples> drive(long measureFrom, long stopAt) {
+        Map<String, Samples> samples = new HashMap<>();
+        long now;
+        while ((now = System.nanoTime()) < stopAt) {
+            LoadEndpoint endpoint = pick();
+            boolean ok = send(endpoint);
+            long latency = System.nanoTime() - now;
+
+            if (now >= measureFrom) {
+                samples.computeIfAbsent(endpoint.getName(), n -> new Samples()).add(latency, ok);
+            }
+        }
+        return samples;
+    }
+
+    private LoadEndpoint pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (LoadEndpoint endpoint : endpoints) {
+            ticket -= endpoint.getWeight();
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException("Endpoint weights must be positive");
+    }
+
+    private boolean send(LoadEndpoint endpoint) {
+        HttpRequest.BodyPublisher body = endpoint.getBody() == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(endpoint.getBody().get());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + endpoint.getPath().get()))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .method(endpoint.getMethod(), body)
+                .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() < 400;
+        } catch (Exception e) {
+            log.debug("{} {} failed: {}", endpoint.getMethod(), endpoint.getName(), e.toString());
+            return false;
+        }
+    }
+
+    private static final class Samples {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long latencyNanos, boolean ok) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        LoadReport.EndpointReport report() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return new LoadReport.EndpointReport(size, errors,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
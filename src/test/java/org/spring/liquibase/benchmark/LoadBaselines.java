@@ -0,0 +1,90 @@
+package org.spring.liquibase.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latency baselines per mix and endpoint, in milliseconds: {"mixed": {"GET /books/{id}": {"p50": 1.2, ...}}}.
+ * A percentile regresses when it exceeds the baseline by more than the relative tolerance and also by more than
+ * the absolute slack, so sub-millisecond noise on fast endpoints does not fail the build.
+ */
+public class LoadBaselines {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final TypeReference<Map<String, Map<String, Map<String, Double>>>> TYPE = new TypeReference<>() {
+    };
+
+    private final Path file;
+    private final Map<String, Map<String, Map<String, Double>>> baselines;
+
+    private LoadBaselines(Path file, Map<String, Map<String, Map<String, Double>>> baselines) {
+        this.file = file;
+        this.baselines = baselines;
+    }
+
+    public static LoadBaselines load(Path file) throws IOException {
+        return new LoadBaselines(file, Files.exists(file) ? MAPPER.readValue(file.toFile(), TYPE) : new TreeMap<>());
+    }
+
+    public boolean contains(String mix) {
+        return baselines.containsKey(mix);
+    }
+
+    // Returns one line per regressed percentile; endpoints without a baseline are not checked.
+    public List<String> regressions(String mix, LoadReport report, double tolerance, double slackMillis) {
+        List<String> regressions = new ArrayList<>();
+        Map<String, Map<String, Double>> endpoints = baselines.getOrDefault(mix, Map.of());
+        report.getEndpoints().forEach((name, measured) -> {
+            Map<String, Double> baseline = endpoints.get(name);
+            if (baseline == null) {
+                return;
+            }
+            check(regressions, name, "p50", baseline.get("p50"), measured.getP50Millis(), tolerance, slackMillis);
+            check(regressions, name, "p99", baseline.get("p99"), measured.getP99Millis(), tolerance, slackMillis);
+            check(regressions, name, "p999", baseline.get("p999"), measured.getP999Millis(), tolerance, slackMillis);
+        });
+        return regressions;
+    }
+
+    private static void check(List<String> regressions, String endpoint, String percentile, Double baseline,
+                              double measured, double tolerance, double slackMillis) {
+        if (baseline == null) {
+            return;
+        }
+        double allowed = Math.max(baseline * (1 + tolerance), baseline + slackMillis);
+        if (measured > allowed) {
+            regressions.add(String.format("%s %s: %.2f ms, baseline %.2f ms, allowed %.2f ms",
+                    endpoint, percentile, measured, baseline, allowed));
+        }
+    }
+
+    // Replaces the baselines of one mix with the measured percentiles and writes the whole file back.
+    public void record(String mix, LoadReport report) throws IOException {
+        Map<String, Map<String, Double>> endpoints = new TreeMap<>();
+        report.getEndpoints().forEach((name, measured) -> {
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", round(measured.getP50Millis()));
+            percentiles.put("p99", round(measured.getP99Millis()));
+            percentiles.put("p999", round(measured.getP999Millis()));
+            endpoints.put(name, percentiles);
+        });
+
+        Map<String, Map<String, Map<String, Double>>> updated = new TreeMap<>(baselines);
+        updated.put(mix, endpoints);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writeValue(file.toFile(), updated);
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100) / 100.0;
+    }
+}
@@ -0,0 +1,25 @@
+package org.spring.liquibase.benchmark;
+
+import lombok.Value;
+
+import java.util.function.Supplier;
+
+// One request type in a load mix; weight is relative to the other endpoints of the mix.
+@Value
+public class LoadEndpoint {
+    String name;
+    String method;
+    Supplier<String> path;
+    Supplier<String> body;
+    int weight;
+
+    public static LoadEndpoint get(String name, Supplier<String> path, int weight) {
+        return new LoadEndpoint(name, "GET", path, null, weight);
+    }
+
+    // body is a JSON document, generated anew for every request
+    public static LoadEndpoint send(String name, String method, Supplier<String> path, Supplier<String> body,
+                                    int weight) {
+        return new LoadEndpoint(name, method, path, body, weight);
+    }
+}
@@ -0,0 +1,162 @@
+package org.spring.liquibase.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.LiquiBaseApplication;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.entity.Role;
+import org.spring.liquibase.entity.User;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.spring.liquibase.service.userService.UserServiceImpl;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pre-release load test: boots the application on a random port against a seeded in-memory H2 database, drives
+ * one of the request mixes below over HTTP Basic, logs throughput and p50/p99/p999 per endpoint, and fails when
+ * an endpoint errors or its latency exceeds the baseline in src/test/resources/load-baselines.json.
+ *
+ * <pre>mvn -Pload test -Dload.mix=read|write|mixed -Dload.clients=4 -Dload.duration=30</pre>
+ *
+ * load.clients defaults to the number of CPUs.
+ *
+ * Baselines depend on the machine they were measured on; re-record them there with -Dload.record=true, which
+ * writes the measured percentiles of the mix back to the file instead of checking them.
+ */
+@Slf4j
+@Tag("load")
+class LoadRegressionTest {
+    private static final String MIX = System.getProperty("load.mix", "mixed");
+    private static final int BOOKS = Integer.getInteger("load.books", 2_000);
+    private static final int USERS = Integer.getInteger("load.users", 100);
+    // More clients than cores would only measure queueing for the CPU.
+    private static final int CLIENTS = Integer.getInteger("load.clients", Runtime.getRuntime().availableProcessors());
+    private static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("load.warmup", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration", 30));
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("load.tolerance", "0.5"));
+    // Tails of a few milliseconds move by tens of them from run to run with a GC pause or a scheduling slice.
+    private static final double SLACK_MILLIS = Double.parseDouble(System.getProperty("load.slack-ms", "50"));
+    private static final boolean RECORD = Boolean.getBoolean("load.record");
+    private static final Path BASELINES = Path.of(System.getProperty("load.baselines",
+            "src/test/resources/load-baselines.json"));
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Test
+    void latencyShouldStayWithinBaselines() throws Exception {
+        LoadBaselines baselines = LoadBaselines.load(BASELINES);
+        assertThat(RECORD || baselines.contains(MIX))
+                .withFailMessage("No baselines for mix \"%s\" in %s, record them with -Dload.record=true", MIX, BASELINES)
+                .isTrue();
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LiquiBaseApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load_regression;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        // latency of the endpoints themselves; shed requests would show up as errors
+                        "--app.concurrency-limit.enabled=false",
+                        // every request authenticates "load"; at the production cost BCrypt would be all that is
+                        // measured, so hashes use the cheapest cost BCrypt allows
+                        "--app.password-hashing.bcrypt-strength=4",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.spring.liquibase.benchmark=INFO")) {
+            long[] bookIds = seedBooks(context);
+            long[] userIds = seedUsers(context);
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+            HttpLoadDriver driver = new HttpLoadDriver("http://localhost:" + port, "load", "load",
+                    mix(MIX, bookIds, userIds));
+            LoadReport report = driver.run(CLIENTS, WARM_UP, DURATION);
+            log.info("Mix {}, {} clients:{}", MIX, CLIENTS, report.format());
+
+            assertThat(report.getEndpoints()).allSatisfy((name, endpoint) ->
+                    assertThat(endpoint.getErrors()).as("errors of %s", name).isZero());
+            if (RECORD) {
+                baselines.record(MIX, report);
+                log.info("Recorded baselines of mix {} to {}", MIX, BASELINES.toAbsolutePath());
+                return;
+            }
+            assertThat(baselines.regressions(MIX, report, TOLERANCE, SLACK_MILLIS)).isEmpty();
+        }
+    }
+
+    private List<LoadEndpoint> mix(String mix, long[] bookIds, long[] userIds) {
+        LoadEndpoint getBook = LoadEndpoint.get("GET /books/{id}", () -> "/books/" + pick(bookIds), 6);
+        LoadEndpoint sortByMin = LoadEndpoint.get("GET /sortByMin", () -> "/books/sortByMin", 2);
+        LoadEndpoint sortByMax = LoadEndpoint.get("GET /sortByMax", () -> "/books/sortByMax", 2);
+        LoadEndpoint getAll = LoadEndpoint.get("GET /getAll?fields", () -> "/books/getAll?fields=id,title", 1);
+        LoadEndpoint search = LoadEndpoint.get("GET /search", () -> "/books/search?q=book+" + pick(bookIds), 1);
+        LoadEndpoint getUser = LoadEndpoint.get("GET /users/{id}", () -> "/users/" + pick(userIds), 1);
+        LoadEndpoint addBook = LoadEndpoint.send("POST /books/add", "POST", () -> "/books/add",
+                () -> bookJson("Load Book " + sequence.incrementAndGet()), 1);
+        LoadEndpoint patchBook = LoadEndpoint.send("PATCH /books/{id}", "PATCH", () -> "/books/" + pick(bookIds),
+                () -> "{\"price\":" + price() + "}", 2);
+        LoadEndpoint putBook = LoadEndpoint.send("PUT /books/{id}", "PUT", () -> "/books/" + pick(bookIds),
+                () -> bookJson("Updated Book " + sequence.incrementAndGet()), 1);
+        LoadEndpoint addUser = LoadEndpoint.send("POST /users/add", "POST", () -> "/users/add",
+                () -> "{\"username\":\"load-new-" + sequence.incrementAndGet()
+                        + "\",\"password\":\"secret\",\"roles\":[\"USER\"]}", 1);
+
+        return switch (mix) {
+            case "read" -> List.of(getBook, sortByMin, sortByMax, getAll, search, getUser);
+            case "write" -> List.of(addBook, patchBook, putBook, addUser);
+            case "mixed" -> List.of(getBook, sortByMin, getAll, getUser, patchBook, addBook);
+            default -> throw new IllegalArgumentException("Unknown load.mix " + mix + ", expected read|write|mixed");
+        };
+    }
+
+    private static long pick(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static int price() {
+        return ThreadLocalRandom.current().nextInt(100, 10_000);
+    }
+
+    private static String bookJson(String title) {
+        return "{\"title\":\"" + title + "\",\"price\":" + price() + "}";
+    }
+
+    private static long[] seedBooks(ConfigurableApplicationContext context) {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setPrice(100 + (i * 7919) % 10_000);
+            books.add(book);
+        }
+        return context.getBean(BookServiceImpl.class).saveBooks(books).stream().mapToLong(Book::getId).toArray();
+    }
+
+    // "load" authenticates every request and may write books; the others are read by GET /users/{id}.
+    private static long[] seedUsers(ConfigurableApplicationContext context) {
+        UserServiceImpl userService = context.getBean(UserServiceImpl.class);
+        userService.saveUser(user("load", Set.of(Role.USER, Role.ADMIN)));
+
+        long[] ids = new long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            ids[i] = userService.saveUser(user("load-user-" + i, Set.of(Role.USER))).getId();
+        }
+        return ids;
+    }
+
+    private static User user(String username, Set<Role> roles) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(username);
+        user.setRoles(roles);
+        return user;
+    }
+}
@@ -0,0 +1,38 @@
+package org.spring.liquibase.benchmark;
+
+import lombok.Value;
+
+import java.util.Map;
+
+@Value
+public class LoadReport {
+    Map<String, EndpointReport> endpoints;
+    double durationSeconds;
+
+    public long totalRequests() {
+        return endpoints.values().stream().mapToLong(EndpointReport::getRequests).sum();
+    }
+
+    public double throughput() {
+        return totalRequests() / durationSeconds;
+    }
+
+    public String format() {
+        StringBuilder table = new StringBuilder(String.format("%n%-20s %10s %8s %10s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+        endpoints.forEach((name, report) -> table.append(String.format("%-20s %10d %8d %10.1f %9.2f %9.2f %9.2f%n",
+                name, report.getRequests(), report.getErrors(), report.getRequests() / durationSeconds,
+                report.getP50Millis(), report.getP99Millis(), report.getP999Millis())));
+        table.append(String.format("%-20s %10d %8s %10.1f%n", "total", totalRequests(), "", throughput()));
+        return table.toString();
+    }
+
+    @Value
+    public static class EndpointReport {
+        long requests;
+        long errors;
+        double p50Millis;
+        double p99Millis;
+        double p999Millis;
+    }
+}
@@ -0,0 +1,109 @@
+package org.spring.liquibase.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Times process start to context refresh ({@code -Dspring.context.exit=onRefresh}) for the packaged jar, the
+ * fast-startup profile and the AOT + CDS build, all against the same already-migrated file database. Each variant
+ * gets one untimed run first, which also migrates the database and records the changelog checksum. Needs the
+ * artifacts of the cds profile:
+ *
+ * <pre>
+ * mvn -Pcds package -DskipTests
+ * mvn -Pbenchmark test -Dtest=StartupTimeComparisonTest -Dstartup.runs=10
+ * </pre>
+ */
+@Slf4j
+@Tag("benchmark")
+class StartupTimeComparisonTest {
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+    private static final Path TARGET = Path.of("target");
+    private static final Path CDS = TARGET.resolve("cds");
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void compareStartupTimes() throws Exception {
+        Path jar = packagedJar();
+        assumeTrue(jar != null, "run mvn -Pcds package first");
+        String database = "--spring.datasource.url=jdbc:h2:file:" + workDir.resolve("startup").toAbsolutePath();
+
+        List<String> report = new ArrayList<>();
+        report.add(measure("jar", List.of("-jar", jar.toString(), database)));
+        report.add(measure("jar + fast-startup",
+                List.of("-jar", jar.toString(), database, "--spring.profiles.active=fast-startup")));
+
+        Path archive = CDS.resolve("application.jsa");
+        if (Files.exists(archive)) {
+            report.add(measure("AOT + CDS + fast-startup", List.of(
+                    "-XX:SharedArchiveFile=" + archive,
+                    "-Dspring.aot.enabled=true",
+                    "-jar", CDS.resolve(jar.getFileName()).toString(),
+                    database, "--spring.profiles.active=fast-startup")));
+        }
+
+        log.info("Startup to context refresh, {} runs each:\n{}", RUNS, String.join("\n", report));
+    }
+
+    private String measure(String variant, List<String> arguments) throws Exception {
+        launch(variant, 0, arguments);
+
+        long[] millis = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            millis[run] = launch(variant, run + 1, arguments);
+        }
+        Arrays.sort(millis);
+
+        return String.format("  %-26s median %6d ms   min %6d ms   max %6d ms",
+                variant, millis[RUNS / 2], millis[0], millis[RUNS - 1]);
+    }
+
+    private long launch(String variant, int run, List<String> arguments) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Dspring.context.exit=onRefresh");
+        command.addAll(arguments);
+        command.add("--server.port=0");
+        command.add("--spring.jpa.show-sql=false");
+
+        File output = workDir.resolve(variant.replaceAll("\\W+", "-") + "-" + run + ".log").toFile();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(output)
+                .start();
+        int exitCode = process.waitFor();
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(exitCode).as("%s run %d, see %s:%n%s", variant, run, output, Files.readString(output.toPath()))
+                .isZero();
+        return elapsed;
+    }
+
+    private static Path packagedJar() throws IOException {
+        if (!Files.isDirectory(TARGET)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(TARGET)) {
+            return files.filter(path -> path.toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.spring.liquibase.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.LiquiBaseApplication;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.entity.Role;
+import org.spring.liquibase.entity.User;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.spring.liquibase.service.userService.UserServiceImpl;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Drives the /books read endpoints with the same closed-loop load against Tomcat on platform threads and on
+ * virtual threads (the "virtual-threads" profile) and logs both reports. The virtual-thread run needs JDK 21+:
+ *
+ * <pre>JAVA_HOME=/path/to/jdk21 mvn -Pbenchmark test -Dtest=VirtualThreadsLoadComparisonTest -Dload.clients=400</pre>
+ */
+@Slf4j
+@Tag("benchmark")
+class VirtualThreadsLoadComparisonTest {
+    private static final int BOOKS = Integer.getInteger("load.books", 10_000);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 300);
+    private static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("load.warmup", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration", 30));
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws InterruptedException {
+        LoadReport platform = runLoad("platform");
+        log.info("Platform threads, {} clients:{}", CLIENTS, platform.format());
+
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need JDK 21+");
+
+        LoadReport virtual = runLoad("virtual-threads");
+        log.info("Virtual threads, {} clients:{}", CLIENTS, virtual.format());
+        log.info("Throughput platform {} req/s, virtual {} req/s",
+                Math.round(platform.throughput()), Math.round(virtual.throughput()));
+    }
+
+    private LoadReport runLoad(String profile) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LiquiBaseApplication.class)
+                .profiles(profile)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load_" + profile.replace('-', '_') + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        // measures raw server capacity, so nothing is shed
+                        "--app.concurrency-limit.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.spring.liquibase.benchmark=INFO")) {
+            long[] ids = seed(context);
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+            HttpLoadDriver driver = new HttpLoadDriver("http://localhost:" + port, "load", "load", List.of(
+                    LoadEndpoint.get("GET /books/{id}",
+                            () -> "/books/" + ids[ThreadLocalRandom.current().nextInt(ids.length)], 6),
+                    LoadEndpoint.get("GET /sortByMin", () -> "/books/sortByMin", 2),
+                    LoadEndpoint.get("GET /sortByMax", () -> "/books/sortByMax", 2),
+                    LoadEndpoint.get("GET /getAll", () -> "/books/getAll", 1)));
+
+            LoadReport report = driver.run(CLIENTS, WARM_UP, DURATION);
+            assertThat(report.totalRequests()).isPositive();
+            return report;
+        }
+    }
+
+    private static long[] seed(ConfigurableApplicationContext context) {
+        User user = new User();
+        user.setUsername("load");
+        user.setPassword("load");
+        user.setRoles(Set.of(Role.USER));
+        context.getBean(UserServiceImpl.class).saveUser(user);
+
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setPrice(100 + (i * 7919) % 10_000);
+            books.add(book);
+        }
+        return context.getBean(BookServiceImpl.class).saveBooks(books).stream().mapToLong(Book::getId).toArray();
+    }
+}
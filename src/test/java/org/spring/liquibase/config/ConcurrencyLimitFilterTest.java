@@ -0,0 +1,104 @@
+package org.spring.liquibase.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void limiter_ShouldGrowWhenBusyAndBackOffOncePerSlowWindow() {
+        AimdLimiter limiter = new AimdLimiter(route(4, 2, 5));
+        long fast = TimeUnit.MILLISECONDS.toNanos(1);
+        long slow = TimeUnit.SECONDS.toNanos(1);
+        long now = 0;
+
+        int inFlight = limiter.tryAcquire();
+        limiter.release(inFlight, now, now + fast);
+        assertEquals(4, limiter.getLimit(), "an idle limiter keeps its limit");
+
+        limiter.tryAcquire();
+        inFlight = limiter.tryAcquire();
+        limiter.release(inFlight, now, now + fast);
+        assertEquals(5, limiter.getLimit());
+
+        // a burst of slow requests admitted together backs off once
+        long burstStart = now;
+        now += slow;
+        for (int i = 0; i < 10; i++) {
+            limiter.release(1, burstStart, now + i);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        // requests started after the decrease and still slow back off again, down to the minimum
+        for (int i = 0; i < 5; i++) {
+            long start = now + 10;
+            now = start + slow;
+            limiter.release(1, start, now);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void doFilter_ShouldRejectWith503OnceReadLimitIsReached() throws Exception {
+        AimdLimiter readLimiter = new AimdLimiter(route(1, 1, 1));
+        AimdLimiter writeLimiter = new AimdLimiter(route(1, 1, 1));
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimiter, writeLimiter, meterRegistry);
+        readLimiter.tryAcquire();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain rejectedChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/1"), rejected, rejectedChain);
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertNull(rejectedChain.getRequest());
+        assertEquals(1, meterRegistry.get("http.concurrency.rejected").tag("route", "read").counter().count());
+
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("PUT", "/books/1"), write, new MockFilterChain());
+        assertEquals(200, write.getStatus());
+        assertEquals(0, writeLimiter.getInFlight());
+
+        MockHttpServletResponse actuator = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), actuator, new MockFilterChain());
+        assertEquals(200, actuator.getStatus());
+        assertEquals(1, meterRegistry.get("http.concurrency.limit").tag("route", "read").gauge().value());
+    }
+
+    @Test
+    void doFilter_ShouldHoldSlotUntilAsyncResponseCompletes() throws Exception {
+        AimdLimiter readLimiter = new AimdLimiter(route(1, 1, 1));
+        AimdLimiter writeLimiter = new AimdLimiter(route(1, 1, 1));
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimiter, writeLimiter, meterRegistry);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/getAll");
+        request.setAsyncSupported(true);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1, readLimiter.getInFlight(), "the streamed body is still being written");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/1"), rejected, new MockFilterChain());
+        assertEquals(503, rejected.getStatus());
+
+        request.getAsyncContext().complete();
+        assertEquals(0, readLimiter.getInFlight());
+    }
+
+    private static ConcurrencyLimitProperties.Route route(int initialLimit, int minLimit, int maxLimit) {
+        ConcurrencyLimitProperties.Route route = new ConcurrencyLimitProperties.Route();
+        route.setInitialLimit(initialLimit);
+        route.setMinLimit(minLimit);
+        route.setMaxLimit(maxLimit);
+        route.setLatencyThreshold(Duration.ofMillis(100));
+        return route;
+    }
+}
@@ -0,0 +1,65 @@
+package org.spring.liquibase.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.read-your-writes-window=1h",
+        "app.datasource.routing.replicas[0].url=" + DataSourceRoutingConfigTest.REPLICA_URL,
+        "app.datasource.routing.replicas[0].username=root",
+        "app.datasource.routing.replicas[0].password=root",
+        "app.datasource.routing.replicas[0].migrate=true"
+})
+@ActiveProfiles("test")
+class DataSourceRoutingConfigTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    BookServiceImpl bookService;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // The two databases never sync, so which rows come back shows where each transaction ran.
+    @Test
+    void readOnlyTransactions_ShouldRunOnReplicaExceptForRecentWriter() {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "root", "root"));
+        replica.update("insert into books (id, title, price, version) values (1000001, 'Replica Book', 100, 0)");
+
+        authenticate("writer");
+        Book book = new Book();
+        book.setTitle("Primary Book");
+        book.setPrice(200);
+        bookService.saveBook(book);
+
+        assertEquals(List.of("Primary Book"), titles(bookService.getAllBooks()));
+
+        authenticate("reader");
+        assertEquals(List.of("Replica Book"), titles(bookService.getAllBooks()));
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).toList();
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null));
+    }
+}
@@ -0,0 +1,149 @@
+package org.spring.liquibase.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.spring.liquibase.LiquiBaseApplication;
+import org.spring.liquibase.dto.BookBulkDelete;
+import org.spring.liquibase.dto.BookBulkUpdate;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.repository.BookRepository;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDatabaseTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void replay_ShouldApplyCompleteEntriesAndSkipTornLastLine() throws Exception {
+        Path journalDirectory = directory.resolve("journal");
+        try (DatabaseJournal journal = new DatabaseJournal(journalDirectory, true)) {
+            journal.append("CREATE TABLE t (id INT PRIMARY KEY, name VARCHAR)");
+            journal.append("MERGE INTO t (id, name) KEY (id) VALUES (1, "
+                    + DatabaseJournalListener.literal("it's\nmultiline") + ")");
+            journal.rotate();
+            journal.append("MERGE INTO t (id, name) KEY (id) VALUES (2, 'second')");
+        }
+        Files.writeString(journalDirectory.resolve("journal-2.sql"), "DELETE FROM t WHERE id = ",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:journal_replay");
+             Statement statement = connection.createStatement()) {
+            assertEquals(3, DatabaseJournal.replay(journalDirectory, connection));
+
+            ResultSet rows = statement.executeQuery("SELECT name FROM t ORDER BY id");
+            assertTrue(rows.next());
+            assertEquals("it's\nmultiline", rows.getString(1));
+            assertTrue(rows.next());
+            assertEquals("second", rows.getString(1));
+            assertFalse(rows.next());
+        }
+    }
+
+    // The second context starts from what the first one left on disk before it was shut down.
+    @Test
+    void restart_ShouldRecoverCommittedWritesFromSnapshotAndJournal() throws Exception {
+        long keptId;
+        long deletedId;
+        try (ConfigurableApplicationContext context = start("in_memory_first", directory.resolve("first"))) {
+            BookServiceImpl bookService = context.getBean(BookServiceImpl.class);
+            keptId = bookService.saveBook(book("Kept Book", 100)).getId();
+            deletedId = bookService.saveBook(book("Deleted Book", 200)).getId();
+            bookService.patchBook(keptId, book(null, 150), null);
+            bookService.deleteBook(deletedId);
+
+            copy(directory.resolve("first"), directory.resolve("crashed"));
+        }
+
+        try (ConfigurableApplicationContext context = start("in_memory_second", directory.resolve("crashed"))) {
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            Book kept = bookRepository.findById(keptId).orElseThrow();
+            assertEquals("Kept Book", kept.getTitle());
+            assertEquals(150, kept.getPrice());
+            assertTrue(bookRepository.findById(deletedId).isEmpty());
+
+            Book next = context.getBean(BookServiceImpl.class).saveBook(book("Next Book", 300));
+            assertTrue(next.getId() > keptId);
+        }
+    }
+
+    // A bulk chunk is journaled as one entry when it commits, not one per changed row.
+    @Test
+    void bulkWrites_ShouldJournalOneEntryPerChunk() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        try (ConfigurableApplicationContext context = start("in_memory_bulk", directory.resolve("first"))) {
+            BookServiceImpl bookService = context.getBean(BookServiceImpl.class);
+            for (int i = 0; i < 3; i++) {
+                ids.add(bookService.saveBook(book("Bulk Book " + i, 100)).getId());
+            }
+
+            long entries = journalEntries(directory.resolve("first"));
+            assertEquals(3, bookService.updateBooks(new BookBulkUpdate(ids, null, null, 250, null)).getAffected());
+            assertEquals(entries + 1, journalEntries(directory.resolve("first")));
+            assertEquals(1, bookService.deleteBooks(new BookBulkDelete(ids.subList(0, 1), null, null)).getAffected());
+            assertEquals(entries + 2, journalEntries(directory.resolve("first")));
+
+            copy(directory.resolve("first"), directory.resolve("crashed"));
+        }
+
+        try (ConfigurableApplicationContext context = start("in_memory_bulk_second", directory.resolve("crashed"))) {
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            assertTrue(bookRepository.findById(ids.get(0)).isEmpty());
+            assertEquals(250, bookRepository.findById(ids.get(1)).orElseThrow().getPrice());
+            assertEquals(250, bookRepository.findById(ids.get(2)).orElseThrow().getPrice());
+        }
+    }
+
+    private static long journalEntries(Path state) throws IOException {
+        long entries = 0;
+        try (Stream<Path> segments = Files.list(state.resolve("journal"))) {
+            for (Path segment : segments.toList()) {
+                entries += Files.readAllLines(segment, StandardCharsets.UTF_8).size();
+            }
+        }
+        return entries;
+    }
+
+    private static ConfigurableApplicationContext start(String database, Path state) {
+        return new SpringApplicationBuilder(LiquiBaseApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "--app.in-memory.enabled=true",
+                        "--app.in-memory.source-url=jdbc:h2:file:" + state.resolve("missing").toAbsolutePath(),
+                        "--app.in-memory.snapshot-file=" + state.resolve("snapshot.zip").toAbsolutePath(),
+                        "--app.in-memory.journal-directory=" + state.resolve("journal").toAbsolutePath());
+    }
+
+    private static Book book(String title, int price) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setPrice(price);
+        return book;
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> paths = Files.walk(from)) {
+            for (Path path : paths.toList()) {
+                Files.copy(path, to.resolve(from.relativize(path).toString()));
+            }
+        }
+    }
+}
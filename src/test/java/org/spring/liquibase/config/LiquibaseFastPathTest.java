@@ -0,0 +1,62 @@
+package org.spring.liquibase.config;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LiquibaseFastPathTest {
+    private final DataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:fast_path;DB_CLOSE_DELAY=-1", "root", "root");
+    private final LiquibaseFastPath fastPath =
+            new LiquibaseFastPath(new MockEnvironment().withProperty("app.liquibase.fast-path", "true"));
+
+    @Test
+    void shouldRunLiquibaseOnceAndSkipWhileChangelogIsUnchanged() throws Exception {
+        SpringLiquibase first = boot(liquibase(null));
+        verify(first, never()).setShouldRun(false);
+        assertEquals(1, new JdbcTemplate(dataSource).queryForObject(
+                "select count(*) from schema_state where checksum = ?", Integer.class, LiquibaseFastPath.checksum(first)));
+
+        SpringLiquibase second = boot(liquibase(null));
+        verify(second).setShouldRun(false);
+
+        SpringLiquibase otherContexts = boot(liquibase("replica"));
+        verify(otherContexts, never()).setShouldRun(false);
+    }
+
+    @Test
+    void shouldLeaveLiquibaseAlone_WhenDisabled() {
+        LiquibaseFastPath disabled = new LiquibaseFastPath(new MockEnvironment());
+        SpringLiquibase liquibase = liquibase(null);
+
+        disabled.postProcessBeforeInitialization(liquibase, "liquibase");
+        disabled.postProcessAfterInitialization(liquibase, "liquibase");
+
+        verify(liquibase, never()).setShouldRun(anyBoolean());
+        verify(liquibase, never()).getDataSource();
+    }
+
+    private SpringLiquibase boot(SpringLiquibase liquibase) throws Exception {
+        fastPath.postProcessBeforeInitialization(liquibase, "liquibase");
+        liquibase.afterPropertiesSet();
+        fastPath.postProcessAfterInitialization(liquibase, "liquibase");
+        return liquibase;
+    }
+
+    private SpringLiquibase liquibase(String contexts) {
+        SpringLiquibase liquibase = spy(new SpringLiquibase());
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.setContexts(contexts);
+        return liquibase;
+    }
+}
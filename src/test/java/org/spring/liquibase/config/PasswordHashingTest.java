@@ -0,0 +1,129 @@
+package org.spring.liquibase.config;
+
+import jakarta.transaction.Transactional;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.entity.Role;
+import org.spring.liquibase.entity.User;
+import org.spring.liquibase.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+
+@SpringBootTest(properties = {
+        "app.password-hashing.algorithm=bcrypt",
+        "app.password-hashing.bcrypt-strength=5"
+})
+@ActiveProfiles("test")
+@Transactional
+class PasswordHashingTest {
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    AuthenticationProvider authenticationProvider;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserCache userCache;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CustomUserDetailsService userDetailsService;
+
+    @Test
+    void passwordEncoder_ShouldUpgradeAnyHashNotInCurrentAlgorithmAndCost() {
+        String current = passwordEncoder.encode("secret");
+        Assertions.assertThat(current).startsWith("{bcrypt}$2a$05$");
+        Assertions.assertThat(passwordEncoder.matches("secret", current)).isTrue();
+        Assertions.assertThat(passwordEncoder.upgradeEncoding(current)).isFalse();
+
+        String cheaper = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret");
+        String dearer = "{bcrypt}" + new BCryptPasswordEncoder(6).encode("secret");
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        String pbkdf2 = "{pbkdf2@SpringSecurity_v5_8}"
+                + Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8().encode("secret");
+        for (String stored : new String[]{cheaper, dearer, legacy, pbkdf2}) {
+            Assertions.assertThat(passwordEncoder.matches("secret", stored)).as(stored).isTrue();
+            Assertions.assertThat(passwordEncoder.upgradeEncoding(stored)).as(stored).isTrue();
+        }
+    }
+
+    @Test
+    void authenticate_ShouldRehashStoredPasswordOnceAfterSuccessfulLogin() {
+        User user = new User();
+        user.setUsername("password-hashing-test-user");
+        user.setPassword(new BCryptPasswordEncoder(4).encode("secret"));
+        user.setRoles(Set.of(Role.USER));
+        userRepository.saveAndFlush(user);
+
+        Assertions.assertThatThrownBy(() -> authenticationProvider.authenticate(
+                        UsernamePasswordAuthenticationToken.unauthenticated("password-hashing-test-user", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        Assertions.assertThat(storedPassword(user)).isEqualTo(user.getPassword());
+
+        authenticationProvider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("password-hashing-test-user", "secret"));
+        String rehashed = storedPassword(user);
+        Assertions.assertThat(rehashed).startsWith("{bcrypt}$2a$05$");
+        Assertions.assertThat(userCache.getUserFromCache("password-hashing-test-user").getPassword())
+                .isEqualTo(rehashed);
+
+        authenticationProvider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("password-hashing-test-user", "secret"));
+        Assertions.assertThat(storedPassword(user)).isEqualTo(rehashed);
+        userCache.removeUserFromCache("password-hashing-test-user");
+    }
+
+    // The count is in the id, so a hash from before the change still matches and is then rewritten at the new one.
+    @Test
+    void authenticate_ShouldRehashPbkdf2PasswordWhenIterationsChange() {
+        PasswordHashingProperties before = new PasswordHashingProperties();
+        before.setAlgorithm(PasswordHashingProperties.Algorithm.PBKDF2);
+        before.setPbkdf2Iterations(1000);
+        User user = new User();
+        user.setUsername("pbkdf2-iterations-test-user");
+        user.setPassword(new PasswordEncoderConfig().passwordEncoder(before).encode("secret"));
+        user.setRoles(Set.of(Role.USER));
+        userRepository.saveAndFlush(user);
+        Assertions.assertThat(user.getPassword()).startsWith("{pbkdf2-1000}");
+
+        PasswordHashingProperties after = new PasswordHashingProperties();
+        after.setAlgorithm(PasswordHashingProperties.Algorithm.PBKDF2);
+        after.setPbkdf2Iterations(2000);
+        after.setPbkdf2PreviousIterations(List.of(1000));
+        PasswordEncoder reconfigured = new PasswordEncoderConfig().passwordEncoder(after);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(reconfigured);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+
+        provider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("pbkdf2-iterations-test-user", "secret"));
+        String rehashed = storedPassword(user);
+        Assertions.assertThat(rehashed).startsWith("{pbkdf2-2000}");
+        Assertions.assertThat(reconfigured.matches("secret", rehashed)).isTrue();
+        Assertions.assertThat(reconfigured.upgradeEncoding(rehashed)).isFalse();
+        userCache.removeUserFromCache("pbkdf2-iterations-test-user");
+    }
+
+    private String storedPassword(User user) {
+        return jdbcTemplate.queryForObject("select password from users where id = ?", String.class, user.getId());
+    }
+}
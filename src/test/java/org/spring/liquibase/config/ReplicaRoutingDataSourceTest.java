@@ -0,0 +1,113 @@
+package org.spring.liquibase.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+    private final DataSource primary = mock(DataSource.class);
+    private final HikariDataSource replica1 = mock(HikariDataSource.class);
+    private final HikariDataSource replica2 = mock(HikariDataSource.class);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void determineTarget_ShouldRoundRobinOverReplicas() {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2),
+                new ReplicaLagGuard(Duration.ZERO, Clock.systemUTC()));
+
+        assertSame(replica1, dataSource.determineTarget());
+        assertSame(replica2, dataSource.determineTarget());
+        assertSame(replica1, dataSource.determineTarget());
+    }
+
+    @Test
+    void determineTarget_ShouldUsePrimary_WhenNoReplicasConfigured() {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(),
+                new ReplicaLagGuard(Duration.ZERO, Clock.systemUTC()));
+
+        assertSame(primary, dataSource.determineTarget());
+    }
+
+    @Test
+    void determineTarget_ShouldKeepWriterOnPrimaryDuringReadYourWritesWindow() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        ReplicaLagGuard lagGuard = new ReplicaLagGuard(Duration.ofSeconds(2), clock);
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1), lagGuard);
+
+        authenticate("writer");
+        lagGuard.afterCommit(transaction(false), null);
+        assertSame(primary, dataSource.determineTarget());
+
+        authenticate("reader");
+        assertSame(replica1, dataSource.determineTarget());
+
+        authenticate("writer");
+        clock.advance(Duration.ofSeconds(2));
+        assertSame(replica1, dataSource.determineTarget());
+    }
+
+    @Test
+    void afterCommit_ShouldIgnoreReadOnlyAndFailedTransactions() {
+        ReplicaLagGuard lagGuard = new ReplicaLagGuard(Duration.ofSeconds(2), Clock.systemUTC());
+
+        lagGuard.afterCommit(transaction(true), null);
+        lagGuard.afterCommit(transaction(false), new IllegalStateException());
+
+        assertFalse(lagGuard.mustReadFromPrimary());
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null));
+    }
+
+    private static TransactionExecution transaction(boolean readOnly) {
+        TransactionExecution transaction = mock(TransactionExecution.class);
+        when(transaction.isReadOnly()).thenReturn(readOnly);
+        return transaction;
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.spring.liquibase.config;
+
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserRolesMigrationTest {
+    private static final String CHANGELOG = "db/changelog/db.changelog-master.yaml";
+
+    // A database from before Liquibase: users and user_roles as hibernate's ddl-auto created them.
+    @Test
+    void update_ShouldHaltAndKeepUserRoles_WhenRoleNameIsUnknown() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:user_roles_unknown");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table users (id bigint auto_increment primary key, "
+                    + "username varchar(255) not null unique, password varchar(255) not null)");
+            statement.execute("create table user_roles (user_id bigint not null references users(id), "
+                    + "role varchar(255))");
+            statement.execute("insert into users (id, username, password) values (1, 'admin', 'x')");
+            statement.execute("insert into user_roles (user_id, role) values (1, 'ROLE_ADMIN')");
+
+            assertThrows(LiquibaseException.class, () -> liquibase(connection).update(""));
+
+            ResultSet roles = statement.executeQuery("select role from user_roles where user_id = 1");
+            assertTrue(roles.next());
+            assertEquals("ROLE_ADMIN", roles.getString(1));
+        }
+    }
+
+    @Test
+    void rollback_ShouldRebuildUserRolesFromBitmask() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:user_roles_rollback");
+             Statement statement = connection.createStatement()) {
+            Liquibase liquibase = liquibase(connection);
+            liquibase.update("");
+            statement.execute("insert into users (id, username, password, roles) values (1, 'admin', 'x', 3)");
+            statement.execute("insert into users (id, username, password, roles) values (2, 'user', 'x', 1)");
+            // Liquibase has switched the connection to manual commit
+            connection.commit();
+
+            liquibase.rollback(1, "");
+
+            ResultSet roles = statement.executeQuery("select user_id, role from user_roles order by user_id, role");
+            assertTrue(roles.next());
+            assertEquals("1 ADMIN", roles.getLong(1) + " " + roles.getString(2));
+            assertTrue(roles.next());
+            assertEquals("1 USER", roles.getLong(1) + " " + roles.getString(2));
+            assertTrue(roles.next());
+            assertEquals("2 USER", roles.getLong(1) + " " + roles.getString(2));
+            assertFalse(roles.next());
+        }
+    }
+
+    private static Liquibase liquibase(Connection connection) throws LiquibaseException {
+        return new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), new JdbcConnection(connection));
+    }
+}
@@ -4,25 +4,52 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.spring.liquibase.dto.BookBulkDelete;
+import org.spring.liquibase.dto.BookBulkUpdate;
+import org.spring.liquibase.dto.BookChange;
+import org.spring.liquibase.dto.BookChanges;
+import org.spring.liquibase.dto.BookPage;
+import org.spring.liquibase.dto.BookSearchResult;
+import org.spring.liquibase.dto.BookStats;
+import org.spring.liquibase.dto.BulkResult;
+import org.spring.liquibase.dto.PriceBucket;
 import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.exeption.InvalidBulkRequestException;
+import org.spring.liquibase.exeption.InvalidFieldsException;
+import org.spring.liquibase.service.bookService.BookResponseCache;
 import org.spring.liquibase.service.bookService.BookServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.*;
 
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @WebMvcTest(controllers = BookController.class)
+@Import({BookResponseCache.class, NoOpCacheManager.class})
 @AutoConfigureMockMvc(addFilters = false) // Отключает все фильтры, включая Security
 
 class BookControllerTest {
@@ -75,6 +102,35 @@ class BookControllerTest {
 
     }
 
+    @Test
+    void addBooks_ShouldReturnCreatedBooks() {
+        Book bookRequest = new Book();
+        bookRequest.setPrice(200);
+        bookRequest.setTitle("Book Title");
+
+        Book bookResponse = new Book();
+        bookResponse.setId(1);
+        bookResponse.setPrice(200);
+        bookResponse.setTitle("Book Title");
+
+        when(bookService.saveBooks(List.of(bookRequest))).thenReturn(List.of(bookResponse));
+
+        try {
+            mockMvc.perform(post("/books/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(List.of(bookRequest))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(bookResponse.getId()))
+                    .andExpect(jsonPath("$[0].title").value(bookResponse.getTitle()))
+                    .andExpect(jsonPath("$[0].price").value(bookResponse.getPrice()))
+                    .andDo(print());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        verify(bookService, times(1)).saveBooks(List.of(bookRequest));
+    }
+
     @Test
     void getBook_ShouldReturnBook() {
         Book book = new Book();
@@ -121,7 +177,7 @@ class BookControllerTest {
         book.setId(1);
         book.setPrice(700);
 
-        when(bookService.updateBook(1, book)).thenReturn(book);
+        when(bookService.updateBook(1, book, null)).thenReturn(book);
 
         try {
             mockMvc.perform(put("/books/{id}", 1)
@@ -136,7 +192,7 @@ class BookControllerTest {
             throw new RuntimeException(e);
         }
 
-        verify(bookService,times(1)).updateBook(1, book);
+        verify(bookService,times(1)).updateBook(1, book, null);
     }
 
     @Test
@@ -149,7 +205,7 @@ class BookControllerTest {
         patchedBook.setTitle("Patched Title");
         patchedBook.setPrice(500);
 
-        when(bookService.patchBook(1, book)).thenReturn(patchedBook);
+        when(bookService.patchBook(1, book, null)).thenReturn(patchedBook);
 
         try {
             mockMvc.perform(patch("/books/{id}", 1)
@@ -163,7 +219,7 @@ class BookControllerTest {
             throw new RuntimeException(e);
         }
 
-        verify(bookService,times(1)).patchBook(1, book);
+        verify(bookService,times(1)).patchBook(1, book, null);
     }
 
     @Test
@@ -198,6 +254,44 @@ class BookControllerTest {
         verify(bookService,times(1)).getAllBooks();
     }
 
+    @Test
+    void streamAllBooks_ShouldWriteOneJsonDocumentPerLine(){
+        Book book = new Book();
+        book.setId(1);
+        book.setTitle("Book Title 1");
+        book.setPrice(200);
+
+        Book book2 = new Book();
+        book2.setId(2);
+        book2.setTitle("Book Title 2");
+        book2.setPrice(300);
+
+        doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(book);
+            consumer.accept(book2);
+            return null;
+        }).when(bookService).exportAllBooks(any());
+
+        try {
+            MvcResult result = mockMvc.perform(get("/books/getAll").param("stream", "true"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andExpect(content().string(objectMapper.writeValueAsString(book) + "\n"
+                            + objectMapper.writeValueAsString(book2) + "\n"))
+                    .andDo(print());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        verify(bookService,times(1)).exportAllBooks(any());
+        verify(bookService,never()).getAllBooks();
+    }
+
     @Test
     void SortByMaxPrice_ShouldReturnBooksSortedByMaxPrice(){
         Book book = new Book();
@@ -210,24 +304,25 @@ class BookControllerTest {
         book2.setTitle("Book Title 2");
         book2.setPrice(300);
 
-        List<Book> books = List.of(book2, book);
+        BookPage page = new BookPage(List.of(book2, book), "next");
 
-        when(bookService.getBooksSortByMaxPrice()).thenReturn(books);
+        when(bookService.getBooksSortByMaxPrice(null, 20)).thenReturn(page);
 
         try {
             mockMvc.perform(get("/books/sortByMax"))
-                    .andExpect(jsonPath("$[0].id").value(book2.getId()))
-                    .andExpect(jsonPath("$[0].title").value(book2.getTitle()))
-                    .andExpect(jsonPath("$[0].price").value(book2.getPrice()))
-                    .andExpect(jsonPath("$[1].id").value(book.getId()))
-                    .andExpect(jsonPath("$[1].title").value(book.getTitle()))
-                    .andExpect(jsonPath("$[1].price").value(book.getPrice()))
+                    .andExpect(jsonPath("$.books[0].id").value(book2.getId()))
+                    .andExpect(jsonPath("$.books[0].title").value(book2.getTitle()))
+                    .andExpect(jsonPath("$.books[0].price").value(book2.getPrice()))
+                    .andExpect(jsonPath("$.books[1].id").value(book.getId()))
+                    .andExpect(jsonPath("$.books[1].title").value(book.getTitle()))
+                    .andExpect(jsonPath("$.books[1].price").value(book.getPrice()))
+                    .andExpect(jsonPath("$.nextCursor").value("next"))
                     .andDo(print());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
-        verify(bookService,times(1)).getBooksSortByMaxPrice();
+        verify(bookService,times(1)).getBooksSortByMaxPrice(null, 20);
     }
 
     @Test
@@ -242,26 +337,252 @@ class BookControllerTest {
         book2.setTitle("Book Title 2");
         book2.setPrice(100);
 
-        List<Book> books = List.of(book2, book);
+        BookPage page = new BookPage(List.of(book2, book), null);
 
-        when(bookService.getBooksSortByMinPrice()).thenReturn(books);
+        when(bookService.getBooksSortByMinPrice("cursor", 2)).thenReturn(page);
 
         try {
-            mockMvc.perform(get("/books/sortByMin"))
-                    .andExpect(jsonPath("$[0].id").value(book2.getId()))
-                    .andExpect(jsonPath("$[0].title").value(book2.getTitle()))
-                    .andExpect(jsonPath("$[0].price").value(book2.getPrice()))
-                    .andExpect(jsonPath("$[1].id").value(book.getId()))
-                    .andExpect(jsonPath("$[1].title").value(book.getTitle()))
-                    .andExpect(jsonPath("$[1].price").value(book.getPrice()))
+            mockMvc.perform(get("/books/sortByMin")
+                            .param("cursor", "cursor")
+                            .param("size", "2"))
+                    .andExpect(jsonPath("$.books[0].id").value(book2.getId()))
+                    .andExpect(jsonPath("$.books[0].title").value(book2.getTitle()))
+                    .andExpect(jsonPath("$.books[0].price").value(book2.getPrice()))
+                    .andExpect(jsonPath("$.books[1].id").value(book.getId()))
+                    .andExpect(jsonPath("$.books[1].title").value(book.getTitle()))
+                    .andExpect(jsonPath("$.books[1].price").value(book.getPrice()))
+                    .andExpect(jsonPath("$.nextCursor").isEmpty())
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                    .andExpect(header().doesNotExist(HttpHeaders.ETAG))
                     .andDo(print());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
-        verify(bookService,times(1)).getBooksSortByMinPrice();
+        verify(bookService,times(1)).getBooksSortByMinPrice("cursor", 2);
+    }
+
+
+
+
+    @Test
+    void searchBooks_ShouldReturnRankedMatches() throws Exception {
+        Book book = new Book();
+        book.setId(1);
+        book.setTitle("Java Concurrency");
+        book.setPrice(300);
+
+        when(bookService.searchBooks("jav conc", 5)).thenReturn(new BookSearchResult(List.of(book), false));
+
+        mockMvc.perform(get("/books/search")
+                        .param("q", "jav conc")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].title").value("Java Concurrency"))
+                .andExpect(header().string("X-Search-Truncated", "false"))
+                .andDo(print());
+
+        verify(bookService, times(1)).searchBooks("jav conc", 5);
+    }
+
+    @Test
+    void getStats_ShouldReturnAggregatesAndHistogram() throws Exception {
+        BookStats stats = new BookStats(3, 100, 399, 200.0, List.of(new PriceBucket(100, 400, 3)));
+
+        when(bookService.getBookStats(1)).thenReturn(stats);
+
+        mockMvc.perform(get("/books/stats")
+                        .param("buckets", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.minPrice").value(100))
+                .andExpect(jsonPath("$.maxPrice").value(399))
+                .andExpect(jsonPath("$.averagePrice").value(200.0))
+                .andExpect(jsonPath("$.histogram[0].fromPrice").value(100))
+                .andExpect(jsonPath("$.histogram[0].toPrice").value(400))
+                .andExpect(jsonPath("$.histogram[0].count").value(3))
+                .andDo(print());
+    }
+
+    @Test
+    void getBook_ShouldReturnETagFromVersion() throws Exception {
+        Book book = new Book();
+        book.setId(1);
+        book.setTitle("Book Title");
+        book.setPrice(200);
+        book.setVersion(3);
+
+        when(bookService.getBookById(1)).thenReturn(book);
+
+        mockMvc.perform(get("/books/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.version").value(3));
+
+        verify(bookService, never()).getBookVersion(anyLong());
+    }
+
+    @Test
+    void getBook_ShouldReturnNotModifiedWithoutLoadingBook_WhenETagMatches() throws Exception {
+        when(bookService.getBookVersion(1)).thenReturn(3L);
+
+        mockMvc.perform(get("/books/{id}", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(bookService, never()).getBookById(anyLong());
+    }
+
+    @Test
+    void getAllBooks_ShouldReturnNotModified_WhenCatalogUnchanged() throws Exception {
+        when(bookService.getCatalogVersion()).thenReturn("2-51-4");
+
+        mockMvc.perform(get("/books/getAll")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2-51-4\""))
+                .andExpect(status().isNotModified());
+
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    void updateBook_ShouldReturnConflict_WhenBookChangedConcurrently() throws Exception {
+        Book book = new Book();
+        book.setTitle("Book Title");
+        book.setPrice(200);
+
+        when(bookService.updateBook(1, book, null)).thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+        mockMvc.perform(put("/books/{id}", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void patchBook_ShouldReturnConflict_WhenIfMatchVersionIsStale() throws Exception {
+        Book book = new Book();
+        book.setPrice(500);
+
+        when(bookService.patchBook(1, book, 3L)).thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+        mockMvc.perform(patch("/books/{id}", 1)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book)))
+                .andExpect(status().isConflict());
+        verify(bookService, times(1)).patchBook(1, book, 3L);
     }
 
+    @Test
+    void getAllBooks_ShouldReturnSelectedFields_WhenFieldsGiven() throws Exception {
+        when(bookService.getCatalogVersion()).thenReturn("1-1-0");
+        when(bookService.getAllBookSummaries("id,title"))
+                .thenReturn(List.of(Map.of("id", 1L, "title", "Book Title")));
+
+        mockMvc.perform(get("/books/getAll")
+                        .param("fields", "id,title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].title").value("Book Title"))
+                .andExpect(jsonPath("$[0].price").doesNotExist());
+
+        verify(bookService, never()).getAllBooks();
+    }
 
+    @Test
+    void sortByMinPrice_ShouldReturnBadRequest_WhenFieldIsUnknown() throws Exception {
+        when(bookService.getBookSummariesSortByMinPrice(null, 20, "version"))
+                .thenThrow(new InvalidFieldsException("Неизвестное поле: \"version\". Доступны: id, title, price."));
 
-}
\ No newline at end of file
+        mockMvc.perform(get("/books/sortByMin")
+                        .param("fields", "version"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void updateBooks_ShouldReturnAffectedCount() throws Exception {
+        BookBulkUpdate request = new BookBulkUpdate(null, 100, 200, null, -10);
+
+        when(bookService.updateBooks(request)).thenReturn(new BulkResult(42));
+
+        mockMvc.perform(patch("/books/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(42));
+
+        verify(bookService, never()).patchBook(anyLong(), any(), any());
+    }
+
+    @Test
+    void deleteBooks_ShouldReturnBadRequest_WhenSelectionIsAmbiguous() throws Exception {
+        BookBulkDelete request = new BookBulkDelete(List.of(1L), 100, null);
+
+        when(bookService.deleteBooks(request))
+                .thenThrow(new InvalidBulkRequestException("Укажите либо ids, либо minPrice/maxPrice."));
+
+        mockMvc.perform(delete("/books/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getChanges_ShouldReturnChangesAndNextToken() throws Exception {
+        Book book = new Book();
+        book.setId(1);
+        book.setTitle("Book Title");
+        book.setPrice(200);
+
+        when(bookService.getChangesSince("10", 100)).thenReturn(new BookChanges(
+                List.of(new BookChange(1, false, book), new BookChange(2, true, null)), "12", false));
+
+        mockMvc.perform(get("/books/changes")
+                        .param("since", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].book.title").value("Book Title"))
+                .andExpect(jsonPath("$.changes[1].bookId").value(2))
+                .andExpect(jsonPath("$.changes[1].deleted").value(true))
+                .andExpect(jsonPath("$.nextToken").value("12"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void getAllBooks_ShouldReturnPreGzippedBody_WhenClientAcceptsGzip() throws Exception {
+        List<Book> books = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            Book book = new Book();
+            book.setId(i);
+            book.setTitle("Book Title " + i);
+            book.setPrice(100 + i);
+            books.add(book);
+        }
+
+        when(bookService.getCatalogVersion()).thenReturn("100-100-0");
+        when(bookService.getAllBooks()).thenReturn(books);
+
+        byte[] body = mockMvc.perform(get("/books/getAll")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"100-100-0\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(100, objectMapper.readTree(in).size());
+        }
+
+        mockMvc.perform(get("/books/getAll"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"100-100-0\""));
+
+        mockMvc.perform(get("/books/getAll")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"100-100-0\""))
+                .andExpect(status().isNotModified());
+    }
+}
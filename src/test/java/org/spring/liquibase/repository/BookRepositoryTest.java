@@ -1,12 +1,16 @@
 package org.spring.liquibase.repository;
 
 
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.entity.BookTombstone;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.List;
@@ -20,6 +24,12 @@ class BookRepositoryTest {
     @Autowired
     BookRepository bookRepository;
 
+    @Autowired
+    BookTombstoneRepository bookTombstoneRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
 
     @Test
     void save() {
@@ -91,4 +101,227 @@ class BookRepositoryTest {
         Assertions.assertThat(bookRepository.findAll()).isEmpty();
     }
 
-}
\ No newline at end of file
+    @Test
+    void findPageAfterByPriceAsc_ShouldSeekPastCursorWithTiesOnId(){
+        Book book1 = new Book();
+        book1.setPrice(100);
+        book1.setTitle("Book Title1");
+
+        Book book2 = new Book();
+        book2.setPrice(200);
+        book2.setTitle("Book Title2");
+
+        Book book3 = new Book();
+        book3.setPrice(200);
+        book3.setTitle("Book Title3");
+
+        bookRepository.save(book3);
+        bookRepository.save(book2);
+        bookRepository.save(book1);
+
+        List<Book> firstPage = bookRepository.findAllByOrderByPriceAscIdAsc(Limit.of(2));
+        Assertions.assertThat(firstPage).containsExactly(book1, book3);
+
+        Book last = firstPage.get(1);
+        List<Book> secondPage = bookRepository.findPageAfterByPriceAsc(last.getPrice(), last.getId(), Limit.of(2));
+        Assertions.assertThat(secondPage).containsExactly(book2);
+    }
+
+    @Test
+    void findPageAfterByPriceDesc_ShouldSeekPastCursor(){
+        Book book1 = new Book();
+        book1.setPrice(100);
+        book1.setTitle("Book Title1");
+
+        Book book2 = new Book();
+        book2.setPrice(200);
+        book2.setTitle("Book Title2");
+
+        bookRepository.save(book1);
+        bookRepository.save(book2);
+
+        List<Book> firstPage = bookRepository.findAllByOrderByPriceDescIdDesc(Limit.of(1));
+        Assertions.assertThat(firstPage).containsExactly(book2);
+
+        List<Book> secondPage = bookRepository.findPageAfterByPriceDesc(book2.getPrice(), book2.getId(), Limit.of(1));
+        Assertions.assertThat(secondPage).containsExactly(book1);
+    }
+
+    @Test
+    void findSummaryPageAfterByPriceAsc_ShouldReadProjectionWithoutManagingEntities(){
+        Book book1 = new Book();
+        book1.setPrice(100);
+        book1.setTitle("Book Title1");
+
+        Book book2 = new Book();
+        book2.setPrice(200);
+        book2.setTitle("Book Title2");
+
+        bookRepository.save(book1);
+        bookRepository.save(book2);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<BookSummary> firstPage = bookRepository.findSummariesOrderByPriceAsc(Limit.of(1));
+        Assertions.assertThat(firstPage).extracting(BookSummary::getTitle).containsExactly("Book Title1");
+
+        List<BookSummary> secondPage = bookRepository.findSummaryPageAfterByPriceAsc(100, book1.getId(), Limit.of(1));
+        Assertions.assertThat(secondPage).extracting(BookSummary::getId).containsExactly(book2.getId());
+        Assertions.assertThat(entityManager.contains(book2)).isFalse();
+        Assertions.assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void summarizePricesAndCountByPriceBucket_ShouldAggregateInDatabase(){
+        for (int price : new int[]{100, 120, 150, 199, 310}) {
+            Book book = new Book();
+            book.setPrice(price);
+            book.setTitle("Book " + price);
+            bookRepository.save(book);
+        }
+
+        PriceSummary summary = bookRepository.summarizePrices();
+        Assertions.assertThat(summary.getBookCount()).isEqualTo(5);
+        Assertions.assertThat(summary.getMinPrice()).isEqualTo(100);
+        Assertions.assertThat(summary.getMaxPrice()).isEqualTo(310);
+        Assertions.assertThat(summary.getAveragePrice()).isEqualTo(175.8);
+
+        List<PriceBucketCount> buckets = bookRepository.countByPriceBucket(100, 100);
+        Assertions.assertThat(buckets).extracting(PriceBucketCount::getBucket).containsExactly(0, 2);
+        Assertions.assertThat(buckets).extracting(PriceBucketCount::getBookCount).containsExactly(4L, 1L);
+    }
+
+    @Test
+    void findVersionByIdAndFingerprintCatalog_ShouldTrackUpdates(){
+        Book book = new Book();
+        book.setPrice(200);
+        book.setTitle("Book Title");
+        bookRepository.saveAndFlush(book);
+
+        CatalogFingerprint before = bookRepository.fingerprintCatalog();
+        Assertions.assertThat(bookRepository.findVersionById(book.getId())).contains(0L);
+
+        book.setPrice(300);
+        bookRepository.saveAndFlush(book);
+
+        Assertions.assertThat(bookRepository.findVersionById(book.getId())).contains(1L);
+        Assertions.assertThat(bookRepository.fingerprintCatalog().getVersionSum())
+                .isEqualTo(before.getVersionSum() + 1);
+        Assertions.assertThat(bookRepository.findVersionById(-1L)).isEmpty();
+    }
+
+    @Test
+    void updateAndPatchById_ShouldWriteInPlaceAndReturnRow(){
+        Book book = new Book();
+        book.setPrice(200);
+        book.setTitle("Book Title");
+        bookRepository.saveAndFlush(book);
+
+        Book updated = bookRepository.updateById(book.getId(), "New Title", 300, null).orElseThrow();
+        Assertions.assertThat(updated.getTitle()).isEqualTo("New Title");
+        Assertions.assertThat(updated.getPrice()).isEqualTo(300);
+        Assertions.assertThat(updated.getVersion()).isEqualTo(1);
+
+        Book patched = bookRepository.patchById(book.getId(), null, 400, null).orElseThrow();
+        Assertions.assertThat(patched.getTitle()).isEqualTo("New Title");
+        Assertions.assertThat(patched.getPrice()).isEqualTo(400);
+        Assertions.assertThat(patched.getVersion()).isEqualTo(2);
+
+        Assertions.assertThat(bookRepository.updateById(book.getId(), null, 500, null).orElseThrow().getTitle()).isNull();
+        Assertions.assertThat(bookRepository.updateById(-1L, "Title", 100, null)).isEmpty();
+        Assertions.assertThat(bookRepository.patchById(-1L, "Title", null, null)).isEmpty();
+    }
+
+    @Test
+    void patchById_ShouldWriteNothing_WhenVersionIsStale(){
+        Book book = new Book();
+        book.setPrice(200);
+        book.setTitle("Book Title");
+        bookRepository.saveAndFlush(book);
+
+        Assertions.assertThat(bookRepository.patchById(book.getId(), null, 300, 0L).orElseThrow().getVersion())
+                .isEqualTo(1);
+        Assertions.assertThat(bookRepository.patchById(book.getId(), null, 400, 0L)).isEmpty();
+        Assertions.assertThat(bookRepository.findById(book.getId()).orElseThrow().getPrice()).isEqualTo(300);
+    }
+
+    @Test
+    void deleteBookById_ShouldReturnAffectedRows(){
+        Book book = new Book();
+        book.setPrice(200);
+        book.setTitle("Book Title");
+        bookRepository.saveAndFlush(book);
+
+        Assertions.assertThat(bookRepository.deleteBookById(book.getId())).isEqualTo(1);
+        Assertions.assertThat(bookRepository.deleteBookById(book.getId())).isZero();
+    }
+
+    @Test
+    void updatePricesInRange_ShouldChangePercentOncePerBookAcrossChunks(){
+        for (int price : new int[]{100, 150, 200, 250}) {
+            Book book = new Book();
+            book.setPrice(price);
+            book.setTitle("Book " + price);
+            bookRepository.save(book);
+        }
+        bookRepository.flush();
+
+        List<Book> firstChunk = bookRepository.updatePricesInRange(100, 200, Long.MIN_VALUE, 2, null, 50);
+        long afterId = firstChunk.stream().mapToLong(Book::getId).max().orElseThrow();
+        List<Book> secondChunk = bookRepository.updatePricesInRange(100, 200, afterId, 2, null, 50);
+
+        Assertions.assertThat(firstChunk).extracting(Book::getPrice).containsExactlyInAnyOrder(150, 225);
+        Assertions.assertThat(secondChunk).extracting(Book::getPrice).containsExactly(300);
+        Assertions.assertThat(secondChunk).extracting(Book::getVersion).containsExactly(1L);
+    }
+
+    @Test
+    void updatePricesByIdsAndDeleteBooks_ShouldReturnAffectedRows(){
+        Book book1 = new Book();
+        book1.setPrice(100);
+        book1.setTitle("Book Title1");
+
+        Book book2 = new Book();
+        book2.setPrice(300);
+        book2.setTitle("Book Title2");
+
+        bookRepository.saveAndFlush(book1);
+        bookRepository.saveAndFlush(book2);
+
+        Assertions.assertThat(bookRepository.updatePricesByIds(List.of(book1.getId(), -1L), 50, null))
+                .extracting(Book::getPrice).containsExactly(50);
+
+        Assertions.assertThat(bookRepository.deleteBooksInRange(0, 100, 10)).containsExactly(book1.getId());
+        Assertions.assertThat(bookRepository.deleteBooksByIds(List.of(book1.getId(), book2.getId())))
+                .containsExactly(book2.getId());
+    }
+
+    @Test
+    void changeSeq_ShouldAdvanceOnWritesAndLeaveTombstonesOnDelete(){
+        Book book1 = new Book();
+        book1.setPrice(100);
+        book1.setTitle("Book Title1");
+
+        Book book2 = new Book();
+        book2.setPrice(200);
+        book2.setTitle("Book Title2");
+
+        bookRepository.saveAndFlush(book1);
+        bookRepository.saveAndFlush(book2);
+        bookRepository.updateById(book1.getId(), "New Title", 150, null);
+        bookRepository.deleteBookById(book2.getId());
+
+        List<Book> changed = bookRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(
+                0, Long.MAX_VALUE, Limit.of(10));
+        Assertions.assertThat(changed).extracting(Book::getId).containsExactly(book1.getId());
+        long updateSeq = changed.get(0).getChangeSeq();
+
+        List<BookTombstone> tombstones = bookTombstoneRepository
+                .findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(
+                        updateSeq, Long.MAX_VALUE, Limit.of(10));
+        Assertions.assertThat(tombstones).extracting(BookTombstone::getBookId).containsExactly(book2.getId());
+        Assertions.assertThat(bookRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(
+                updateSeq, Long.MAX_VALUE, Limit.of(10))).isEmpty();
+        Assertions.assertThat(bookRepository.nextChangeSeq()).isGreaterThan(tombstones.get(0).getChangeSeq());
+    }
+}
@@ -0,0 +1,159 @@
+package org.spring.liquibase.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.entity.Role;
+import org.spring.liquibase.entity.User;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.spring.liquibase.service.userService.UserServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Not transactional: entries reach the second-level cache only when a transaction commits.
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    BookServiceImpl bookService;
+
+    @Autowired
+    UserServiceImpl userService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from books where title like 'L2 %'");
+        jdbcTemplate.update("delete from users where username like 'l2-%'");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void findById_ShouldNotQueryDatabaseOnRepeatRead() {
+        Book book = inTransaction(() -> bookRepository.save(book("L2 Book", 200)));
+
+        inTransaction(() -> bookRepository.findById(book.getId()).orElseThrow());
+        statistics.clear();
+        Book cached = inTransaction(() -> bookRepository.findById(book.getId()).orElseThrow());
+
+        Assertions.assertThat(cached.getTitle()).isEqualTo("L2 Book");
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+        Assertions.assertThat(statistics.getDomainDataRegionStatistics("book").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByUsername_ShouldServeUserFromCacheOnRepeatRead() {
+        inTransaction(() -> userRepository.save(user("l2-user")));
+
+        inTransaction(() -> userRepository.findByUsername("l2-user").orElseThrow());
+        statistics.clear();
+        User cached = inTransaction(() -> userRepository.findByUsername("l2-user").orElseThrow());
+
+        Assertions.assertThat(cached.getRoles()).containsExactly(Role.USER);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+        Assertions.assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void nativeWrites_ShouldEvictCachedEntries() {
+        Book book = inTransaction(() -> bookRepository.save(book("L2 Book", 200)));
+        User user = inTransaction(() -> userRepository.save(user("l2-user")));
+        inTransaction(() -> bookRepository.findById(book.getId()).orElseThrow());
+        inTransaction(() -> userRepository.findByUsername("l2-user").orElseThrow());
+
+        bookService.updateBook(book.getId(), book("L2 Updated", 300), null);
+        userService.updateUser(user.getId(), user("l2-renamed"));
+
+        Assertions.assertThat(inTransaction(() -> bookRepository.findById(book.getId()).orElseThrow()).getPrice())
+                .isEqualTo(300);
+        Assertions.assertThat(inTransaction(() -> userRepository.findByUsername("l2-user"))).isEmpty();
+        Optional<User> renamed = inTransaction(() -> userRepository.findByUsername("l2-renamed"));
+        Assertions.assertThat(renamed).map(User::getId).contains(user.getId());
+    }
+
+    @Test
+    void deleteBook_ShouldLeaveCachedUsersInPlace() {
+        Book book = inTransaction(() -> bookRepository.save(book("L2 Book", 200)));
+        User user = inTransaction(() -> userRepository.save(user("l2-user")));
+        inTransaction(() -> userRepository.findByUsername("l2-user").orElseThrow());
+
+        bookService.deleteBook(book.getId());
+        statistics.clear();
+        inTransaction(() -> userRepository.findByUsername("l2-user").orElseThrow());
+
+        Assertions.assertThat(entityManagerFactory.getCache().contains(User.class, user.getId())).isTrue();
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+        Assertions.assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void streamAll_ShouldNotFillBookRegion() {
+        Book book = inTransaction(() -> bookRepository.save(book("L2 Book", 200)));
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        long streamed = inTransaction(() -> {
+            try (Stream<Book> books = bookRepository.streamAll()) {
+                return books.count();
+            }
+        });
+
+        Assertions.assertThat(streamed).isPositive();
+        Assertions.assertThat(entityManagerFactory.getCache().contains(Book.class, book.getId())).isFalse();
+        Assertions.assertThat(statistics.getDomainDataRegionStatistics("book").getPutCount()).isZero();
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    private static Book book(String title, int price) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setPrice(price);
+        return book;
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRoles(Set.of(Role.USER));
+        return user;
+    }
+}
@@ -0,0 +1,74 @@
+package org.spring.liquibase.repository;
+
+import jakarta.transaction.Transactional;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.entity.Role;
+import org.spring.liquibase.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class UserRepositoryTest {
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findByUsername_ShouldReadRolesFromBitmaskColumn(){
+        User user = user("repository-test-user");
+        user.setRoles(Set.of(Role.USER, Role.ADMIN));
+        userRepository.saveAndFlush(user);
+
+        Integer mask = jdbcTemplate.queryForObject("select roles from users where id = ?", Integer.class, user.getId());
+        Assertions.assertThat(mask).isEqualTo(Role.USER.getBit() | Role.ADMIN.getBit());
+        Assertions.assertThat(userRepository.findByUsername("repository-test-user").orElseThrow().getRoles())
+                .containsExactlyInAnyOrder(Role.USER, Role.ADMIN);
+    }
+
+    @Test
+    void updateById_ShouldWriteInPlaceAndReturnRow(){
+        User user = userRepository.saveAndFlush(user("repository-test-user"));
+
+        User updated = userRepository.updateById(user.getId(), "repository-test-renamed", "encoded").orElseThrow();
+
+        Assertions.assertThat(updated.getUsername()).isEqualTo("repository-test-renamed");
+        Assertions.assertThat(updated.getPassword()).isEqualTo("encoded");
+        Assertions.assertThat(userRepository.updateById(-1L, "nobody", "encoded")).isEmpty();
+    }
+
+    @Test
+    void deleteByIdReturningUsername_ShouldDeleteUser(){
+        User user = userRepository.saveAndFlush(user("repository-test-user"));
+
+        Assertions.assertThat(userRepository.deleteByIdReturningUsername(user.getId())).contains("repository-test-user");
+        Assertions.assertThat(userRepository.deleteByIdReturningUsername(user.getId())).isEmpty();
+    }
+
+    @Test
+    void updatePasswordByUsername_ShouldReturnIdOfUpdatedRow(){
+        User user = userRepository.saveAndFlush(user("repository-test-user"));
+
+        Assertions.assertThat(userRepository.updatePasswordByUsername("repository-test-user", "rehashed"))
+                .contains(user.getId());
+        Assertions.assertThat(jdbcTemplate.queryForObject("select password from users where id = ?", String.class,
+                user.getId())).isEqualTo("rehashed");
+        Assertions.assertThat(userRepository.updatePasswordByUsername("nobody", "rehashed")).isEmpty();
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRoles(Set.of(Role.USER));
+        return user;
+    }
+}
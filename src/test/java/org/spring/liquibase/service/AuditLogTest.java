@@ -0,0 +1,97 @@
+package org.spring.liquibase.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.config.AuditProperties;
+import org.spring.liquibase.service.auditService.AuditEntry;
+import org.spring.liquibase.service.auditService.AuditLog;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditLogTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void record_ShouldDropWhenQueueIsFull() {
+        AuditLog auditLog = auditLog(properties(2, AuditProperties.OverflowPolicy.DROP));
+
+        assertTrue(auditLog.record(entry(1)));
+        assertTrue(auditLog.record(entry(2)));
+        assertFalse(auditLog.record(entry(3)));
+
+        assertEquals(2, meterRegistry.get("audit.queue.depth").gauge().value());
+        assertEquals(1, meterRegistry.get("audit.dropped").tag("reason", "overflow").counter().count());
+    }
+
+    @Test
+    void record_ShouldBlockUntilTimeoutThenDrop() {
+        AuditProperties properties = properties(1, AuditProperties.OverflowPolicy.BLOCK);
+        properties.setBlockTimeout(Duration.ofMillis(30));
+        AuditLog auditLog = auditLog(properties);
+        auditLog.record(entry(1));
+
+        long start = System.nanoTime();
+        assertFalse(auditLog.record(entry(2)));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(30)) >= 0);
+        assertEquals(1, meterRegistry.get("audit.dropped").tag("reason", "overflow").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writer_ShouldInsertFullBatchesAndDrainOnStop() {
+        AuditProperties properties = properties(100, AuditProperties.OverflowPolicy.DROP);
+        properties.setBatchSize(3);
+        properties.setFlushInterval(Duration.ofMinutes(1));
+        AuditLog auditLog = auditLog(properties);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    batchSizes.add(invocation.<List<AuditEntry>>getArgument(1).size());
+                    return new int[0][];
+                });
+        auditLog.start();
+
+        for (int i = 1; i <= 4; i++) {
+            auditLog.record(entry(i));
+        }
+
+        verify(jdbcTemplate, timeout(5_000))
+                .batchUpdate(anyString(), anyList(), eq(3), any(ParameterizedPreparedStatementSetter.class));
+
+        auditLog.stop();
+
+        assertEquals(List.of(3, 1), batchSizes);
+        assertFalse(auditLog.isRunning());
+        assertEquals(4, meterRegistry.get("audit.written").counter().count());
+        assertEquals(0, meterRegistry.get("audit.queue.depth").gauge().value());
+    }
+
+    private AuditLog auditLog(AuditProperties properties) {
+        return new AuditLog(properties, jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                meterRegistry);
+    }
+
+    private static AuditProperties properties(int capacity, AuditProperties.OverflowPolicy policy) {
+        AuditProperties properties = new AuditProperties();
+        properties.setQueueCapacity(capacity);
+        properties.setOverflowPolicy(policy);
+        return properties;
+    }
+
+    private static AuditEntry entry(long bookId) {
+        return new AuditEntry(Instant.now(), "admin", "BOOK", bookId, "UPDATED");
+    }
+}
@@ -0,0 +1,98 @@
+package org.spring.liquibase.service;
+
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.dto.BookChange;
+import org.spring.liquibase.dto.BookChanges;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.repository.BookRepository;
+import org.spring.liquibase.service.bookService.BookChangeWatermark;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Needs the change_seq defaults and ON UPDATE clause from the changelog, so it runs on a fresh in-memory database.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:book_change_feed;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@ActiveProfiles("test")
+class BookChangeFeedTest {
+    @Autowired
+    BookServiceImpl bookService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void getChangesSince_ShouldNotSkipWriteThatCommitsAfterLaterOne() throws Exception {
+        List<Book> books = bookService.saveBooks(List.of(book("First"), book("Second")));
+        long first = books.get(0).getId();
+        long second = books.get(1).getId();
+        String caughtUp = bookService.getChangesSince(null, 100).getNextToken();
+
+        // the slow writer draws its change_seq first and commits last
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> slowWriter = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    bookService.updateBook(first, book("First, slow"), null);
+                    written.countDown();
+                    await(commit);
+                }));
+        await(written);
+        bookService.updateBook(second, book("Second, fast"), null);
+
+        BookChanges whileInFlight = bookService.getChangesSince(caughtUp, 100);
+        assertTrue(whileInFlight.getChanges().isEmpty());
+        assertEquals(caughtUp, whileInFlight.getNextToken());
+
+        commit.countDown();
+        slowWriter.get(10, TimeUnit.SECONDS);
+
+        BookChanges afterCommit = bookService.getChangesSince(whileInFlight.getNextToken(), 100);
+        assertEquals(List.of(first, second), afterCommit.getChanges().stream().map(BookChange::getBookId).toList());
+        assertEquals("First, slow", afterCommit.getChanges().get(0).getBook().getTitle());
+        assertTrue(bookService.getChangesSince(afterCommit.getNextToken(), 100).getChanges().isEmpty());
+    }
+
+    @Test
+    void track_ShouldReadSequenceOnlyOnceToSeedTheWatermark() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.nextChangeSeq()).thenReturn(10L, 12L);
+        BookChangeWatermark watermark = new BookChangeWatermark(bookRepository);
+
+        watermark.track(() -> null);
+        long whileInFlight = watermark.track(watermark::safeChangeSeq);
+
+        assertEquals(9, whileInFlight);
+        verify(bookRepository, times(2)).nextChangeSeq();
+        watermark.track(() -> null);
+        verify(bookRepository, times(2)).nextChangeSeq();
+    }
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setPrice(100);
+        return book;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.spring.liquibase.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.config.CacheConfig;
+import org.spring.liquibase.exeption.BookNotFoundException;
+import org.spring.liquibase.service.bookService.BookChangedEvent;
+import org.spring.liquibase.service.bookService.BookResponseCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookResponseCacheTest {
+    private final BookResponseCache cache = new BookResponseCache(
+            new CaffeineCacheManager(CacheConfig.BOOK_RESPONSES_CACHE), new ObjectMapper());
+
+    @Test
+    void get_ShouldSerializeOnceUntilBookChanges() {
+        AtomicInteger loads = new AtomicInteger();
+
+        BookResponseCache.CachedResponse first = cache.get("sortByMin:null:20", () -> List.of(loads.incrementAndGet()));
+        BookResponseCache.CachedResponse second = cache.get("sortByMin:null:20", () -> List.of(loads.incrementAndGet()));
+
+        assertSame(first, second);
+        assertEquals("[1]", new String(first.getJson(), StandardCharsets.UTF_8));
+        assertNull(first.getGzip());
+
+        cache.onBookChanged(BookChangedEvent.deleted(1));
+
+        BookResponseCache.CachedResponse third = cache.get("sortByMin:null:20", () -> List.of(loads.incrementAndGet()));
+        assertEquals("[2]", new String(third.getJson(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void get_ShouldLoadOnceForConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<BookResponseCache.CachedResponse> first = executor.submit(() -> cache.get("getAll:1", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return List.of();
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+            Future<BookResponseCache.CachedResponse> second = executor.submit(() -> cache.get("getAll:1", () -> {
+                loads.incrementAndGet();
+                return List.of();
+            }));
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_ShouldRethrowLoaderExceptionWithoutCaching() {
+        assertThrows(BookNotFoundException.class, () -> cache.get("getAll:0", () -> {
+            throw new BookNotFoundException("Книги в базе данных отсутствуют.");
+        }));
+
+        assertEquals("[]", new String(cache.get("getAll:0", List::of).getJson(), StandardCharsets.UTF_8));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.spring.liquibase.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.config.CacheConfig;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.repository.BookRepository;
+import org.spring.liquibase.repository.PriceSummary;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookServiceImplCacheTest {
+    @MockBean
+    BookRepository bookRepository;
+
+    @Autowired
+    BookServiceImpl bookService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.BOOKS_CACHE).clear();
+        cacheManager.getCache(CacheConfig.BOOK_STATS_CACHE).clear();
+    }
+
+    @Test
+    void getBookById_ShouldHitDatabaseOnlyOnce() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book(1, "Title", 500)));
+
+        bookService.getBookById(1);
+        Book cached = bookService.getBookById(1);
+
+        assertEquals("Title", cached.getTitle());
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void updateBook_ShouldEvictCachedBookAfterCommit() {
+        when(bookRepository.findById(1L))
+                .thenReturn(Optional.of(book(1, "Old Title", 500)))
+                .thenReturn(Optional.of(book(1, "New Title", 700)));
+        when(bookRepository.updateById(1L, "New Title", 700, null)).thenReturn(Optional.of(book(1, "New Title", 700)));
+        bookService.getBookById(1);
+
+        bookService.updateBook(1, book(0, "New Title", 700), null);
+        Book reloaded = bookService.getBookById(1);
+
+        assertEquals("New Title", reloaded.getTitle());
+        assertEquals(700, reloaded.getPrice());
+        verify(bookRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void updateBook_ShouldDropOldRowCachedByReadBeforeCommit() {
+        when(bookRepository.findById(1L))
+                .thenReturn(Optional.of(book(1, "Old Title", 500)))
+                .thenReturn(Optional.of(book(1, "New Title", 700)));
+        when(bookRepository.updateById(1L, "New Title", 700, null)).thenReturn(Optional.of(book(1, "New Title", 700)));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.updateBook(1, book(0, "New Title", 700), null);
+            // another request reads the still committed old row while the update is in flight
+            CompletableFuture.runAsync(() -> bookService.getBookById(1)).join();
+            assertNotNull(cacheManager.getCache(CacheConfig.BOOKS_CACHE).get(1L));
+        });
+
+        assertEquals("New Title", bookService.getBookById(1).getTitle());
+    }
+
+    @Test
+    void deleteBook_ShouldEvictCachedBook() {
+        Book book = book(1, "Title", 500);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.deleteBookById(1L)).thenReturn(1);
+        bookService.getBookById(1);
+
+        bookService.deleteBook(1);
+
+        assertNull(cacheManager.getCache(CacheConfig.BOOKS_CACHE).get(1L));
+    }
+
+    @Test
+    void getBookStats_ShouldBeCachedUntilNextWrite() {
+        PriceSummary summary = mock(PriceSummary.class);
+        when(bookRepository.summarizePrices()).thenReturn(summary);
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        bookService.getBookStats(10);
+        bookService.getBookStats(10);
+        verify(bookRepository, times(1)).summarizePrices();
+
+        bookService.saveBook(book(2, "Title", 500));
+        bookService.getBookStats(10);
+        verify(bookRepository, times(2)).summarizePrices();
+    }
+
+    private static Book book(long id, String title, int price) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setPrice(price);
+        return book;
+    }
+}
@@ -1,17 +1,49 @@
 package org.spring.liquibase.service;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.spring.liquibase.dto.BookBulkDelete;
+import org.spring.liquibase.dto.BookBulkUpdate;
+import org.spring.liquibase.dto.BookChange;
+import org.spring.liquibase.dto.BookChanges;
+import org.spring.liquibase.dto.BookPage;
+import org.spring.liquibase.dto.BookSearchResult;
+import org.spring.liquibase.dto.BookStats;
+import org.spring.liquibase.dto.BookSummaryPage;
+import org.spring.liquibase.dto.PriceBucket;
 import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.entity.BookTombstone;
 import org.spring.liquibase.exeption.BookNotFoundException;
+import org.spring.liquibase.exeption.InvalidBulkRequestException;
+import org.spring.liquibase.exeption.InvalidCursorException;
+import org.spring.liquibase.exeption.InvalidFieldsException;
 import org.spring.liquibase.repository.BookRepository;
+import org.spring.liquibase.repository.BookSummary;
+import org.spring.liquibase.repository.BookTombstoneRepository;
+import org.spring.liquibase.repository.PriceBucketCount;
+import org.spring.liquibase.repository.PriceSummary;
+import org.spring.liquibase.service.bookService.BookChangeWatermark;
+import org.spring.liquibase.service.bookService.BookChangedEvent;
+import org.spring.liquibase.service.bookService.BookCursor;
 import org.spring.liquibase.service.bookService.BookServiceImpl;
-
+import org.spring.liquibase.service.bookService.BookTitleIndex;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,12 +52,34 @@ class BookServiceImplTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookTombstoneRepository bookTombstoneRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private BookTitleIndex bookTitleIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private BookChangeWatermark bookChangeWatermark;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(bookChangeWatermark.track(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(bookChangeWatermark.safeChangeSeq()).thenReturn(Long.MAX_VALUE);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
@@ -41,28 +95,51 @@ class BookServiceImplTest {
         assertEquals("Test Book", savedBook.getTitle());
         assertEquals(500, savedBook.getPrice());
         verify(bookRepository, times(1)).save(book);
+        verify(eventPublisher).publishEvent(BookChangedEvent.created(book.getId(), "Test Book"));
+    }
+
+    @Test
+    void saveBooks_ShouldInsertInChunksAndClearPersistenceContext() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            Book book = new Book();
+            book.setId(i + 1);
+            book.setTitle("Book " + i);
+            book.setPrice(100 + i);
+            books.add(book);
+        }
+
+        List<Book> savedBooks = bookService.saveBooks(books);
+
+        assertEquals(501, savedBooks.size());
+        assertTrue(savedBooks.stream().allMatch(book -> book.getId() == 0));
+        verify(bookRepository, times(1)).saveAll(books.subList(0, 500));
+        verify(bookRepository, times(1)).saveAll(books.subList(500, 501));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
     }
 
     @Test
     void patchBook_ShouldReturnPatchBook() {
-        Book oldBook = new Book();
-        oldBook.setId(1);
-        oldBook.setTitle("Old Title");
-        oldBook.setPrice(500);
+        Book patched = new Book();
+        patched.setId(1);
+        patched.setTitle("New Title");
+        patched.setPrice(500);
+        patched.setVersion(1);
 
         Book newBook = new Book();
         newBook.setTitle("New Title");
 
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(oldBook));
-        when(bookRepository.save(oldBook)).thenReturn(oldBook);
+        when(bookRepository.patchById(1L, "New Title", null, null)).thenReturn(Optional.of(patched));
 
-        Book patchedBook = bookService.patchBook(1, newBook);
+        Book patchedBook = bookService.patchBook(1, newBook, null);
 
         assertEquals("New Title", patchedBook.getTitle());
         assertEquals(500, patchedBook.getPrice());
+        assertEquals(1, patchedBook.getVersion());
 
-        verify(bookRepository, times(1)).findById(1L);
-        verify(bookRepository, times(1)).save(oldBook);
+        verify(bookRepository, never()).findById(anyLong());
+        verify(bookRepository, never()).save(any());
     }
 
     @Test
@@ -92,39 +169,167 @@ class BookServiceImplTest {
 
     @Test
     void deleteBook_ShouldDeleteBook() {
-        Book book = new Book();
-        book.setId(1);
-        book.setTitle("Book to delete");
-        book.setPrice(700);
-
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        doNothing().when(bookRepository).delete(book);
+        when(bookRepository.deleteBookById(1L)).thenReturn(1);
 
         bookService.deleteBook(1);
 
-        verify(bookRepository, times(1)).findById(1L);
-        verify(bookRepository, times(1)).delete(book);
+        verify(bookRepository, times(1)).deleteBookById(1L);
+        verify(bookRepository, never()).findById(anyLong());
+        verify(eventPublisher).publishEvent(BookChangedEvent.deleted(1));
+    }
+
+    @Test
+    void deleteBook_ShouldThrowBookNotFoundException_WhenNoRowDeleted() {
+        when(bookRepository.deleteBookById(1L)).thenReturn(0);
+
+        assertThrows(BookNotFoundException.class, () -> bookService.deleteBook(1));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void patchBook_ShouldUpdateOnlyNonNullFields() {
-        Book oldBook = new Book();
-        oldBook.setId(1);
-        oldBook.setTitle("Old Title");
-        oldBook.setPrice(500);
+        Book newBook = new Book();
+        newBook.setPrice(700);
+
+        when(bookRepository.patchById(1L, null, 700, null)).thenReturn(Optional.empty());
+
+        assertThrows(BookNotFoundException.class, () -> bookService.patchBook(1, newBook, null));
+        verify(bookRepository, times(1)).patchById(1L, null, 700, null);
+    }
+
+    @Test
+    void patchBook_ShouldThrowOptimisticLockingFailure_WhenVersionIsStale() {
+        Book newBook = new Book();
+        newBook.setPrice(700);
+
+        when(bookRepository.patchById(1L, null, 700, 3L)).thenReturn(Optional.empty());
+        when(bookRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookService.patchBook(1, newBook, 3L));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
 
+    @Test
+    void updateBook_ShouldReplaceColumnsInSingleStatement() {
         Book newBook = new Book();
         newBook.setTitle("New Title");
+        newBook.setPrice(700);
 
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(oldBook));
-        when(bookRepository.save(oldBook)).thenReturn(oldBook);
+        Book updated = new Book();
+        updated.setId(1);
+        updated.setTitle("New Title");
+        updated.setPrice(700);
+        updated.setVersion(4);
 
-        Book patchedBook = bookService.patchBook(1, newBook);
+        when(bookRepository.updateById(1L, "New Title", 700, null)).thenReturn(Optional.of(updated));
 
-        assertEquals("New Title", patchedBook.getTitle());
-        assertEquals(500, patchedBook.getPrice());
-        verify(bookRepository, times(1)).findById(1L);
-        verify(bookRepository, times(1)).save(oldBook);
+        assertEquals(updated, bookService.updateBook(1, newBook, null));
+        verify(bookRepository, never()).findById(anyLong());
+        verify(eventPublisher).publishEvent(BookChangedEvent.updated(1, "New Title"));
+    }
+
+    @Test
+    void updateBooks_ShouldUpdateIdsInChunks() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 501; id++) {
+            ids.add(id);
+        }
+        Book book = new Book();
+        book.setId(501);
+        book.setTitle("Book 501");
+
+        when(bookRepository.updatePricesByIds(ids.subList(0, 500), 300, null)).thenReturn(List.of(new Book()));
+        when(bookRepository.updatePricesByIds(List.of(501L), 300, null)).thenReturn(List.of(book));
+
+        assertEquals(2, bookService.updateBooks(new BookBulkUpdate(ids, null, null, 300, null)).getAffected());
+        verify(bookRepository, times(2)).updatePricesByIds(anyList(), eq(300), isNull());
+        verify(eventPublisher).publishEvent(BookChangedEvent.updated(501, "Book 501"));
+    }
+
+    @Test
+    void updateBooks_ShouldSeekPastLastIdOfEachRangeChunk() {
+        List<Book> firstChunk = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            Book book = new Book();
+            book.setId(i);
+            firstChunk.add(book);
+        }
+
+        when(bookRepository.updatePricesInRange(100, Integer.MAX_VALUE, Long.MIN_VALUE, 500, null, 10))
+                .thenReturn(firstChunk);
+        when(bookRepository.updatePricesInRange(100, Integer.MAX_VALUE, 500L, 500, null, 10))
+                .thenReturn(List.of());
+
+        assertEquals(500, bookService.updateBooks(new BookBulkUpdate(null, 100, null, null, 10)).getAffected());
+        verify(bookRepository).updatePricesInRange(100, Integer.MAX_VALUE, 500L, 500, null, 10);
+    }
+
+    @Test
+    void updateBooks_ShouldRejectAmbiguousRequest() {
+        assertThrows(InvalidBulkRequestException.class,
+                () -> bookService.updateBooks(new BookBulkUpdate(List.of(1L), null, null, 300, 10)));
+        assertThrows(InvalidBulkRequestException.class,
+                () -> bookService.updateBooks(new BookBulkUpdate(List.of(1L), 100, null, 300, null)));
+        assertThrows(InvalidBulkRequestException.class,
+                () -> bookService.updateBooks(new BookBulkUpdate(null, null, null, 300, null)));
+        assertThrows(InvalidBulkRequestException.class,
+                () -> bookService.updateBooks(new BookBulkUpdate(null, 100, 200, null, -100)));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void deleteBooks_ShouldDeleteRangeUntilChunkIsShort() {
+        List<Long> firstChunk = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            firstChunk.add(id);
+        }
+
+        when(bookRepository.deleteBooksInRange(100, 200, 500)).thenReturn(firstChunk, List.of(501L));
+
+        assertEquals(501, bookService.deleteBooks(new BookBulkDelete(null, 100, 200)).getAffected());
+        verify(bookRepository, times(2)).deleteBooksInRange(100, 200, 500);
+        verify(eventPublisher).publishEvent(BookChangedEvent.deleted(501));
+    }
+
+    @Test
+    void getChangesSince_ShouldMergeUpdatesAndTombstonesByChangeSeq() {
+        Book book1 = new Book();
+        book1.setId(1);
+        book1.setChangeSeq(11);
+
+        Book book2 = new Book();
+        book2.setId(2);
+        book2.setChangeSeq(14);
+
+        BookTombstone tombstone = new BookTombstone();
+        tombstone.setBookId(3);
+        tombstone.setChangeSeq(12);
+
+        when(bookChangeWatermark.safeChangeSeq()).thenReturn(20L);
+        when(bookRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(10, 20, Limit.of(3)))
+                .thenReturn(List.of(book1, book2));
+        when(bookTombstoneRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(
+                10, 20, Limit.of(3)))
+                .thenReturn(List.of(tombstone));
+
+        BookChanges changes = bookService.getChangesSince("10", 2);
+
+        assertEquals(List.of(1L, 3L), changes.getChanges().stream().map(BookChange::getBookId).toList());
+        assertFalse(changes.getChanges().get(0).isDeleted());
+        assertTrue(changes.getChanges().get(1).isDeleted());
+        assertNull(changes.getChanges().get(1).getBook());
+        assertEquals("12", changes.getNextToken());
+        assertTrue(changes.isHasMore());
+    }
+
+    @Test
+    void getChangesSince_ShouldKeepTokenWhenNothingChanged() {
+        BookChanges changes = bookService.getChangesSince("42", 100);
+
+        assertTrue(changes.getChanges().isEmpty());
+        assertEquals("42", changes.getNextToken());
+        assertFalse(changes.isHasMore());
+        assertThrows(InvalidCursorException.class, () -> bookService.getChangesSince("abc", 100));
     }
 
     @Test
@@ -151,44 +356,196 @@ class BookServiceImplTest {
     }
 
     @Test
-    void getBooksSortByMinPrice_ShouldReturnBooksSortedByMin00Price() {
+    void exportAllBooks_ShouldHandEachBookToConsumerAndDetachIt() {
         Book book1 = new Book();
+        book1.setId(1);
         book1.setTitle("Book 1");
         book1.setPrice(400);
 
         Book book2 = new Book();
+        book2.setId(2);
         book2.setTitle("Book 2");
         book2.setPrice(300);
 
-        List<Book> allBooks = List.of(book2, book1);
-        when(bookRepository.findAll()).thenReturn(allBooks);
+        when(bookRepository.streamAll()).thenReturn(Stream.of(book1, book2));
 
-        List<Book> sortedBooks = bookService.getBooksSortByMinPrice();
+        List<Book> exported = new ArrayList<>();
+        bookService.exportAllBooks(exported::add);
 
-        assertEquals(2, sortedBooks.size());
-        assertEquals(book2, allBooks.get(0));
-        assertEquals(book1, allBooks.get(1));
-        verify(bookRepository, times(1)).findAll();
+        assertEquals(List.of(book1, book2), exported);
+        InOrder inOrder = inOrder(entityManager);
+        inOrder.verify(entityManager).detach(book1);
+        inOrder.verify(entityManager).detach(book2);
+        verify(bookRepository, never()).findAll();
+    }
+
+    @Test
+    void searchBooks_ShouldReturnBooksInIndexRankOrder() {
+        Book book1 = new Book();
+        book1.setId(1);
+        book1.setTitle("Java Concurrency");
+
+        Book book2 = new Book();
+        book2.setId(2);
+        book2.setTitle("Java");
+
+        when(bookTitleIndex.search("java", 20)).thenReturn(new BookTitleIndex.Hits(List.of(2L, 1L, 3L), true));
+        when(bookRepository.findAllById(List.of(2L, 1L, 3L))).thenReturn(List.of(book1, book2));
+
+        BookSearchResult result = bookService.searchBooks("java", 20);
+
+        assertEquals(List.of(book2, book1), result.getBooks());
+        assertTrue(result.isTruncated());
+    }
+
+    @Test
+    void searchBooks_ShouldNotQueryRepository_WhenNothingMatches() {
+        when(bookTitleIndex.search("missing", 20)).thenReturn(new BookTitleIndex.Hits(List.of(), false));
+
+        assertTrue(bookService.searchBooks("missing", 20).getBooks().isEmpty());
+        verify(bookRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void getBookStats_ShouldFillEmptyHistogramBuckets() {
+        PriceSummary summary = mock(PriceSummary.class);
+        when(summary.getBookCount()).thenReturn(3L);
+        when(summary.getMinPrice()).thenReturn(100);
+        when(summary.getMaxPrice()).thenReturn(399);
+        when(summary.getAveragePrice()).thenReturn(200.0);
+        when(bookRepository.summarizePrices()).thenReturn(summary);
+
+        PriceBucketCount first = mock(PriceBucketCount.class);
+        when(first.getBucket()).thenReturn(0);
+        when(first.getBookCount()).thenReturn(2L);
+        PriceBucketCount last = mock(PriceBucketCount.class);
+        when(last.getBucket()).thenReturn(2);
+        when(last.getBookCount()).thenReturn(1L);
+        when(bookRepository.countByPriceBucket(100, 100)).thenReturn(List.of(first, last));
+
+        BookStats stats = bookService.getBookStats(3);
+
+        assertEquals(3, stats.getCount());
+        assertEquals(200.0, stats.getAveragePrice());
+        assertEquals(List.of(
+                new PriceBucket(100, 200, 2),
+                new PriceBucket(200, 300, 0),
+                new PriceBucket(300, 400, 1)), stats.getHistogram());
+    }
+
+    @Test
+    void getBookStats_ShouldReturnEmptyStats_WhenNoBooks() {
+        PriceSummary summary = mock(PriceSummary.class);
+        when(bookRepository.summarizePrices()).thenReturn(summary);
+
+        BookStats stats = bookService.getBookStats(10);
+
+        assertEquals(0, stats.getCount());
+        assertTrue(stats.getHistogram().isEmpty());
+        verify(bookRepository, never()).countByPriceBucket(anyInt(), anyInt());
+    }
+
+    @Test
+    void getBooksSortByMinPrice_ShouldReturnFirstPageWithCursor() {
+        Book book1 = new Book();
+        book1.setId(1);
+        book1.setTitle("Book 1");
+        book1.setPrice(300);
+
+        Book book2 = new Book();
+        book2.setId(2);
+        book2.setTitle("Book 2");
+        book2.setPrice(400);
+
+        Book book3 = new Book();
+        book3.setId(3);
+        book3.setTitle("Book 3");
+        book3.setPrice(500);
+
+        when(bookRepository.findAllByOrderByPriceAscIdAsc(Limit.of(3))).thenReturn(List.of(book1, book2, book3));
+
+        BookPage page = bookService.getBooksSortByMinPrice(null, 2);
+
+        assertEquals(List.of(book1, book2), page.getBooks());
+        assertEquals(new BookCursor(400, 2), BookCursor.decode(page.getNextCursor()));
+        verify(bookRepository, times(1)).findAllByOrderByPriceAscIdAsc(Limit.of(3));
+    }
+
+    @Test
+    void getBooksSortByMinPrice_ShouldSeekAfterCursor() {
+        Book book = new Book();
+        book.setId(3);
+        book.setTitle("Book 3");
+        book.setPrice(500);
+
+        when(bookRepository.findPageAfterByPriceAsc(400, 2, Limit.of(3))).thenReturn(List.of(book));
+
+        BookPage page = bookService.getBooksSortByMinPrice(new BookCursor(400, 2).encode(), 2);
+
+        assertEquals(List.of(book), page.getBooks());
+        assertNull(page.getNextCursor());
+        verify(bookRepository, times(1)).findPageAfterByPriceAsc(400, 2, Limit.of(3));
+    }
+
+    @Test
+    void getBookSummariesSortByMinPrice_ShouldReturnRequestedFieldsOnly() {
+        BookSummary summary1 = summary(1, "Book 1", 300);
+        BookSummary summary2 = summary(2, "Book 2", 400);
+        when(bookRepository.findSummariesOrderByPriceAsc(Limit.of(2))).thenReturn(List.of(summary1, summary2));
+
+        BookSummaryPage page = bookService.getBookSummariesSortByMinPrice(null, 1, "title,id");
+
+        assertEquals(List.of(Map.of("title", "Book 1", "id", 1L)), page.getBooks());
+        assertEquals(List.of("title", "id"), List.copyOf(page.getBooks().get(0).keySet()));
+        assertEquals(new BookCursor(300, 1), BookCursor.decode(page.getNextCursor()));
+        verify(bookRepository, never()).findAllByOrderByPriceAscIdAsc(any());
+    }
+
+    @Test
+    void getAllBookSummaries_ShouldRejectUnknownField() {
+        assertThrows(InvalidFieldsException.class, () -> bookService.getAllBookSummaries("id,version"));
+        verifyNoInteractions(bookRepository);
+    }
+
+    private static BookSummary summary(long id, String title, int price) {
+        BookSummary summary = mock(BookSummary.class);
+        when(summary.getId()).thenReturn(id);
+        when(summary.getTitle()).thenReturn(title);
+        when(summary.getPrice()).thenReturn(price);
+        return summary;
     }
 
     @Test
     void getBooksSortByMaxPrice_ShouldReturnBooksSortedByMaxPrice() {
         Book book1 = new Book();
+        book1.setId(1);
         book1.setTitle("Book 1");
         book1.setPrice(400);
 
         Book book2 = new Book();
+        book2.setId(2);
         book2.setTitle("Book 2");
         book2.setPrice(300);
 
-        List<Book> allBooks = List.of(book1, book2);
-        when(bookRepository.findAll()).thenReturn(allBooks);
+        when(bookRepository.findAllByOrderByPriceDescIdDesc(Limit.of(21))).thenReturn(List.of(book1, book2));
 
-        List<Book> sortedBooks = bookService.getBooksSortByMinPrice();
+        BookPage page = bookService.getBooksSortByMaxPrice(null, 20);
 
-        assertEquals(2, sortedBooks.size());
-        assertEquals(book1, allBooks.get(0));
-        assertEquals(book2, allBooks.get(1));
-        verify(bookRepository, times(1)).findAll();
+        assertEquals(List.of(book1, book2), page.getBooks());
+        assertNull(page.getNextCursor());
+        verify(bookRepository, times(1)).findAllByOrderByPriceDescIdDesc(Limit.of(21));
+    }
+
+    @Test
+    void getBooksSortByMaxPrice_ShouldThrowBookNotFoundException_WhenNoBooks() {
+        when(bookRepository.findAllByOrderByPriceDescIdDesc(Limit.of(21))).thenReturn(List.of());
+
+        assertThrows(BookNotFoundException.class, () -> bookService.getBooksSortByMaxPrice(null, 20));
+    }
+
+    @Test
+    void getBooksSortByMinPrice_ShouldThrowInvalidCursorException_WhenCursorMalformed() {
+        assertThrows(InvalidCursorException.class, () -> bookService.getBooksSortByMinPrice("not-a-cursor", 20));
+        verifyNoInteractions(bookRepository);
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package org.spring.liquibase.service;
+
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.dto.BookStats;
+import org.spring.liquibase.dto.PriceBucket;
+import org.spring.liquibase.service.bookService.BookServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against a fresh in-memory database built by the Liquibase changelog alone, where price is decimal(8,2).
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:book_stats;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@ActiveProfiles("test")
+class BookStatsTest {
+    @Autowired
+    BookServiceImpl bookService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void getBookStats_ShouldCountNonIntegerPricesIntoWholeBuckets() {
+        assertEquals("NUMERIC", jdbcTemplate.queryForObject("select data_type from information_schema.columns " +
+                "where table_name = 'BOOKS' and column_name = 'PRICE'", String.class));
+        for (String price : new String[]{"100.00", "100.20", "150.50", "199.99", "200.00", "310.75"}) {
+            jdbcTemplate.update("insert into books (id, title, price, version) " +
+                    "values (next value for books_seq, 'Book " + price + "', " + price + ", 0)");
+        }
+
+        BookStats stats = bookService.getBookStats(3);
+
+        assertEquals(6, stats.getCount());
+        assertEquals(100, stats.getMinPrice());
+        assertEquals(311, stats.getMaxPrice());
+        assertEquals(List.of(
+                new PriceBucket(100, 171, 3),
+                new PriceBucket(171, 242, 2),
+                new PriceBucket(242, 313, 1)
+        ), stats.getHistogram());
+    }
+}
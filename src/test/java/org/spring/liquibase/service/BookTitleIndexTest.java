@@ -0,0 +1,101 @@
+package org.spring.liquibase.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.entity.Book;
+import org.spring.liquibase.repository.BookRepository;
+import org.spring.liquibase.service.bookService.BookChangedEvent;
+import org.spring.liquibase.service.bookService.BookTitleIndex;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookTitleIndexTest {
+    private BookRepository bookRepository;
+    private BookTitleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        index = new BookTitleIndex(bookRepository, mock(EntityManager.class));
+        index.onBookChanged(BookChangedEvent.created(1, "Java Concurrency in Practice"));
+        index.onBookChanged(BookChangedEvent.created(2, "Effective Java"));
+        index.onBookChanged(BookChangedEvent.created(3, "Java"));
+        index.onBookChanged(BookChangedEvent.created(4, "Война и мир"));
+    }
+
+    @Test
+    void search_ShouldRankExactMatchesAboveLongerTitles() {
+        assertEquals(List.of(3L, 2L, 1L), index.search("java", 10).getBookIds());
+    }
+
+    @Test
+    void search_ShouldMatchPrefixesOfEveryTerm() {
+        assertEquals(List.of(1L), index.search("jav CONC", 10).getBookIds());
+        assertEquals(List.of(4L), index.search("войн", 10).getBookIds());
+        assertTrue(index.search("java war", 10).getBookIds().isEmpty());
+    }
+
+    @Test
+    void search_ShouldRespectLimit() {
+        assertEquals(List.of(3L), index.search("java", 1).getBookIds());
+    }
+
+    @Test
+    void search_ShouldReportTruncation_WhenPrefixExpandsPastBound() {
+        for (int i = 0; i < 600; i++) {
+            index.onBookChanged(BookChangedEvent.created(100 + i, String.format("Zeta%03d", i)));
+        }
+
+        BookTitleIndex.Hits broad = index.search("zeta", 1000);
+        assertTrue(broad.isTruncated());
+        assertEquals(512, broad.getBookIds().size());
+
+        BookTitleIndex.Hits narrow = index.search("zeta5", 1000);
+        assertFalse(narrow.isTruncated());
+        assertEquals(100, narrow.getBookIds().size());
+        assertFalse(index.search("java", 10).isTruncated());
+    }
+
+    @Test
+    void onBookChanged_ShouldReindexUpdatedAndDropDeletedBooks() {
+        index.onBookChanged(BookChangedEvent.updated(3, "Kotlin"));
+        index.onBookChanged(BookChangedEvent.deleted(2));
+
+        assertEquals(List.of(1L), index.search("java", 10).getBookIds());
+        assertEquals(List.of(3L), index.search("kot", 10).getBookIds());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void rebuild_ShouldKeepChangesAppliedWhileSnapshotWasRead() {
+        // the snapshot still holds the old titles of books 1 and 2 when their updates commit
+        Stream<Book> snapshot = Stream.of(book(1, "Old Title"), book(2, "Effective Java"))
+                .peek(book -> {
+                    if (book.getId() == 1) {
+                        index.onBookChanged(BookChangedEvent.updated(1, "New Title"));
+                        index.onBookChanged(BookChangedEvent.deleted(2));
+                    }
+                });
+        when(bookRepository.streamAll()).thenReturn(snapshot);
+
+        index.rebuild();
+
+        assertEquals(List.of(1L), index.search("new", 10).getBookIds());
+        assertTrue(index.search("old", 10).getBookIds().isEmpty());
+        assertTrue(index.search("effective", 10).getBookIds().isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    private static Book book(long id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        return book;
+    }
+}
@@ -0,0 +1,87 @@
+package org.spring.liquibase.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.spring.liquibase.entity.Role;
+import org.spring.liquibase.entity.User;
+import org.spring.liquibase.service.userService.UserServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: the principal is evicted only when the write commits.
+@SpringBootTest
+@ActiveProfiles("test")
+class UserServiceImplCacheTest {
+    @Autowired
+    UserServiceImpl userService;
+
+    @Autowired
+    UserCache userCache;
+
+    @Autowired
+    AuthenticationProvider authenticationProvider;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users where username like 'cache-%'");
+        userCache.removeUserFromCache("cache-user");
+        userCache.removeUserFromCache("cache-renamed");
+    }
+
+    @Test
+    void deleteUser_ShouldDropPrincipalCachedByLoginBeforeCommit() {
+        User user = userService.saveUser(user("cache-user"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.deleteUser(user.getId());
+            // a login reads the still committed row while the delete is in flight
+            CompletableFuture.runAsync(() -> login("cache-user")).join();
+            assertNotNull(userCache.getUserFromCache("cache-user"));
+        });
+
+        assertNull(userCache.getUserFromCache("cache-user"));
+    }
+
+    @Test
+    void updateUser_ShouldDropPrincipalCachedByLoginBeforeCommit() {
+        User user = userService.saveUser(user("cache-user"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.updateUser(user.getId(), user("cache-renamed"));
+            CompletableFuture.runAsync(() -> login("cache-user")).join();
+            assertNotNull(userCache.getUserFromCache("cache-user"));
+        });
+
+        assertNull(userCache.getUserFromCache("cache-user"));
+    }
+
+    private void login(String username) {
+        authenticationProvider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(username, "secret"));
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setRoles(Set.of(Role.USER));
+        return user;
+    }
+}
@@ -0,0 +1,98 @@
+package org.spring.liquibase.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.spring.liquibase.entity.User;
+import org.spring.liquibase.exeption.UserNotFoundException;
+import org.spring.liquibase.repository.UserRepository;
+import org.spring.liquibase.service.userService.UserChangedEvent;
+import org.spring.liquibase.service.userService.UserServiceImpl;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserServiceImplTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void updateUser_ShouldEncodePasswordAndUpdateInSingleStatement() {
+        User newUser = new User();
+        newUser.setUsername("new");
+        newUser.setPassword("secret");
+
+        User updated = new User();
+        updated.setId(1);
+        updated.setUsername("new");
+        updated.setPassword("encoded");
+
+        when(passwordEncoder.encode("secret")).thenReturn("encoded");
+        when(userRepository.updateById(1L, "new", "encoded")).thenReturn(Optional.of(updated));
+
+        assertEquals(updated, userService.updateUser(1, newUser));
+        verify(userRepository, never()).findById(anyLong());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void updateUser_ShouldThrowUserNotFoundException_WhenNoRowUpdated() {
+        User newUser = new User();
+        newUser.setUsername("new");
+        newUser.setPassword("secret");
+
+        when(userRepository.updateById(eq(1L), eq("new"), any())).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.updateUser(1, newUser));
+    }
+
+    @Test
+    void deleteUser_ShouldPublishEventAndLeaveCacheToListener() {
+        when(userRepository.deleteByIdReturningUsername(1L)).thenReturn(Optional.of("user"));
+
+        userService.deleteUser(1);
+
+        verify(userRepository).deleteByIdReturningUsername(1L);
+        verify(userCache, never()).removeUserFromCache(any());
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1, UserChangedEvent.ChangeType.DELETED, "user"));
+    }
+
+    @Test
+    void evictUser_ShouldRemoveDeletedUserFromCache() {
+        userService.evictUser(new UserChangedEvent(1, UserChangedEvent.ChangeType.DELETED, "user"));
+
+        verify(userCache, times(1)).removeUserFromCache("user");
+    }
+
+    @Test
+    void deleteUser_ShouldThrowUserNotFoundException_WhenUserNotFound() {
+        when(userRepository.deleteByIdReturningUsername(1L)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.deleteUser(1));
+        verifyNoInteractions(userCache);
+    }
+}